@@ -0,0 +1,358 @@
+package com.example.smartparkingclient;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.smartparkingclient.core.PlacesParser;
+import com.example.smartparkingclient.core.PlacesPayload;
+import com.example.smartparkingclient.core.SpotStatus;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Очередь заездов/выездов для сервера (таблица pending_actions в ParkingDb).
+ *
+ * Действие сначала пишется в базу, потом отправляется. Всё, что накопилось,
+ * уходит одним запросом /update/batch; у каждого действия свой ключ
+ * идемпотентности, так что повтор после обрыва не применится дважды.
+ * Отправленное хотя бы раз действие (attempted) сервер мог уже применить,
+ * даже если ответ не дошёл, — оно уходит повторно со своим ключом, а новое
+ * действие по месту встаёт за ним и уходит только после ответа на первое
+ * (не состоялся заезд — выезд за ним снимается). Заезд и выезд по одному месту, ни разу
+ * не отправленные, гасят друг друга (CANCELLED). Без связи очередь
+ * повторяет отправку с растущей паузой и сразу — при появлении сети.
+ *
+ * Заезд отправляется с ожидаемым статусом "free": если место уже занял
+ * кто-то другой, сервер его не тронет (CONFLICT), а наша стоянка отменяется.
+ * Выезд — с ожидаемым "busy".
+ * Ответ сервера сразу применяется к ParkingRepository — отдельный запрос
+ * /places после действия не нужен.
+ */
+public final class ActionQueue {
+
+    // Чем закончилась первая попытка отправить действие
+    public static final int SENT = 0;       // сервер принял
+    public static final int QUEUED = 1;     // нет связи, действие ждёт в очереди
+    public static final int REJECTED = 2;   // сервер отказал, действие удалено
+    public static final int CONFLICT = 3;   // место уже занято другим, стоянка отменена
+    public static final int CANCELLED = 4;  // погашено следующим действием по этому месту
+
+    public interface Callback {
+        void onResult(int outcome);
+    }
+
+    private static final long MIN_RETRY_MS = 2000;
+    private static final long MAX_RETRY_MS = 5 * 60 * 1000;
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private static volatile ActionQueue instance;
+
+    private final Context appContext;
+    private final ApiClient api;
+    private final ParkingDb db;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // база и сеть — по очереди в одном потоке, одновременно летит не больше одной пачки
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    // ключ действия → ждущий результата экран (только для первой попытки)
+    private final Map<String, Callback> callbacks = new HashMap<>();
+    private long retryDelayMs = MIN_RETRY_MS;
+
+    private ActionQueue(Context context) {
+        appContext = context.getApplicationContext();
+        api = ApiClient.get(context);
+        db = ParkingDb.get(context);
+
+        ConnectivityManager cm = context.getSystemService(ConnectivityManager.class);
+        if (cm != null) {
+            cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    mainHandler.post(ActionQueue.this::retryNow);
+                }
+            });
+        }
+    }
+
+    public static ActionQueue get(Context context) {
+        ActionQueue local = instance;
+        if (local == null) {
+            synchronized (ActionQueue.class) {
+                local = instance;
+                if (local == null) {
+                    local = new ActionQueue(context);
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    // ---------- ДОБАВЛЕНИЕ ----------
+
+    // Ставит действие в очередь и сразу пробует отправить. callback — в главном потоке.
+    public void submit(int placeId, byte status, Callback callback) {
+        String key = UUID.randomUUID().toString();
+        mainHandler.post(() -> callbacks.put(key, callback));
+
+        worker.execute(() -> {
+            String wire = SpotStatus.toWire(status);
+            Pending last = findLastPending(placeId);
+
+            if (last != null && last.status.equals(wire)) {
+                // то же действие ещё раз: ждущее остаётся со своим ключом
+                // (сервер узнает его, если уже применил), результат — новому экрану
+                mainHandler.post(() -> takeOverCallback(key, last.key));
+                flushNow();
+                return;
+            }
+            if (last != null && !last.attempted) {
+                // заезд + выезд (или наоборот), прежнее ни разу не отправлено:
+                // вместе они ничего не меняют. Отправлять одно второе нельзя —
+                // голый выезд освободил бы место, которое успел занять другой
+                db.getWritableDatabase().delete(ParkingDb.TABLE_PENDING,
+                        ParkingDb.COL_ACTION_KEY + " = ?", new String[]{last.key});
+                mainHandler.post(() -> notify(Arrays.asList(last.key, key), CANCELLED));
+                return;
+            }
+
+            // прежнее действие уже уходило на сервер — новое встаёт за ним
+            ContentValues values = new ContentValues();
+            values.put(ParkingDb.COL_ACTION_KEY, key);
+            values.put(ParkingDb.COL_PLACE_ID, placeId);
+            values.put(ParkingDb.COL_STATUS, wire);
+            values.put(ParkingDb.COL_CREATED_AT, System.currentTimeMillis());
+            values.put(ParkingDb.COL_ATTEMPTED, 0);
+            db.getWritableDatabase().insert(ParkingDb.TABLE_PENDING, null, values);
+            flushNow();
+        });
+    }
+
+    private static final class Pending {
+        final String key;
+        final String status;
+        final boolean attempted;
+
+        Pending(String key, String status, boolean attempted) {
+            this.key = key;
+            this.status = status;
+            this.attempted = attempted;
+        }
+    }
+
+    // Последнее ждущее действие по месту или null (поток worker)
+    private Pending findLastPending(int placeId) {
+        try (Cursor c = db.getReadableDatabase().query(ParkingDb.TABLE_PENDING,
+                new String[]{ParkingDb.COL_ACTION_KEY, ParkingDb.COL_STATUS, ParkingDb.COL_ATTEMPTED},
+                ParkingDb.COL_PLACE_ID + " = ?", new String[]{String.valueOf(placeId)},
+                null, null, ParkingDb.COL_ID + " DESC", "1")) {
+            return c.moveToFirst() ? new Pending(c.getString(0), c.getString(1), c.getInt(2) != 0) : null;
+        }
+    }
+
+    // главный поток: результат ждущего действия получит экран нового,
+    // прежний экран больше не держим
+    private void takeOverCallback(String newKey, String pendingKey) {
+        Callback callback = callbacks.remove(newKey);
+        Callback previous = callback != null ? callbacks.put(pendingKey, callback) : null;
+        if (previous != null) previous.onResult(CANCELLED);
+    }
+
+    // Отправить накопленное (старт приложения, появление сети)
+    public void flush() {
+        mainHandler.post(this::retryNow);
+    }
+
+    private void retryNow() {
+        mainHandler.removeCallbacks(retryTask);
+        retryDelayMs = MIN_RETRY_MS;
+        worker.execute(this::flushNow);
+    }
+
+    private final Runnable retryTask = () -> worker.execute(this::flushNow);
+
+    // ---------- ОТПРАВКА (поток worker) ----------
+    private void flushNow() {
+        List<String> keys = new ArrayList<>();
+        Map<String, Integer> placeIds = new HashMap<>();
+        Map<String, String> statuses = new HashMap<>();
+        JSONArray actions = new JSONArray();
+        // по месту уходит только первое действие: следующее зависит от его исхода
+        // (заезд не состоялся — выезд за ним не нужен)
+        Set<Integer> places = new HashSet<>();
+        boolean deferred = false;
+
+        try (Cursor c = db.getReadableDatabase().query(ParkingDb.TABLE_PENDING,
+                new String[]{ParkingDb.COL_ACTION_KEY, ParkingDb.COL_PLACE_ID, ParkingDb.COL_STATUS},
+                null, null, null, null, ParkingDb.COL_ID)) {
+            while (c.moveToNext()) {
+                if (!places.add(c.getInt(1))) {
+                    deferred = true;
+                    continue;
+                }
+                keys.add(c.getString(0));
+                placeIds.put(c.getString(0), c.getInt(1));
+                statuses.put(c.getString(0), c.getString(2));
+                JSONObject action = new JSONObject()
+                        .put("key", c.getString(0))
+                        .put("id", c.getInt(1))
+                        .put("status", c.getString(2));
+                // заехать можно только на свободное место, выехать — только с занятого
+                action.put("expected", SpotStatus.WIRE_BUSY.equals(c.getString(2))
+                        ? SpotStatus.WIRE_FREE : SpotStatus.WIRE_BUSY);
+                actions.put(action);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+        if (keys.isEmpty()) return;
+
+        // с этого момента сервер может применить действие, даже если ответ не дойдёт:
+        // такое действие больше не гасится и не заменяется, только повторяется с тем же ключом
+        ContentValues attempted = new ContentValues();
+        attempted.put(ParkingDb.COL_ATTEMPTED, 1);
+        SQLiteDatabase w = db.getWritableDatabase();
+        for (String key : keys) {
+            w.update(ParkingDb.TABLE_PENDING, attempted, ParkingDb.COL_ACTION_KEY + " = ?",
+                    new String[]{key});
+        }
+
+        Request request = new Request.Builder()
+                .url(api.url("/update/batch"))
+                .post(RequestBody.create("{\"actions\":" + actions + "}", JSON))
+                .build();
+
+        try (Response response = api.http().newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (response.code() >= 500 || body == null) {
+                onSendFailed(keys);
+                return;
+            }
+            if (!response.isSuccessful()) {
+                // пачка целиком не принята (формат, 4xx) — повтор не поможет
+                finish(keys, REJECTED);
+                for (String key : keys) {
+                    if (SpotStatus.WIRE_BUSY.equals(statuses.get(key))) cancelQueued(placeIds.get(key));
+                }
+                if (deferred) worker.execute(this::flushNow);
+                return;
+            }
+
+            byte[] bytes = body.bytes();
+            JSONArray results = new JSONObject(new String(bytes, StandardCharsets.UTF_8))
+                    .getJSONArray("results");
+            List<String> sent = new ArrayList<>();
+            List<String> rejected = new ArrayList<>();
+            List<String> conflicts = new ArrayList<>();
+            for (int i = 0; i < results.length(); i++) {
+                JSONObject r = results.getJSONObject(i);
+                List<String> target = r.optBoolean("success") ? sent
+                        : r.optBoolean("conflict") ? conflicts : rejected;
+                target.add(r.getString("key"));
+            }
+
+            // затронутые места с версиями — в формате дельты /places
+            PlacesPayload confirmed = PlacesParser.parse(new ByteArrayInputStream(bytes));
+            mainHandler.post(() -> {
+                for (String key : conflicts) cancelSession(placeIds.get(key));
+                ParkingRepository.get(appContext).applyConfirmed(confirmed);
+            });
+
+            finish(sent, SENT);
+            finish(rejected, REJECTED);
+            finish(conflicts, CONFLICT);
+
+            // заезд не состоялся — выезд, ждавший за ним, отправлять нельзя:
+            // с ожидаемым "busy" он освободил бы чужую машину
+            List<String> failed = new ArrayList<>(conflicts);
+            failed.addAll(rejected);
+            for (String key : failed) {
+                if (SpotStatus.WIRE_BUSY.equals(statuses.get(key))) cancelQueued(placeIds.get(key));
+            }
+            if (deferred) worker.execute(this::flushNow); // теперь очередь следующих
+
+        } catch (IOException e) {
+            onSendFailed(keys);
+        } catch (Exception e) {
+            e.printStackTrace(); // непонятный ответ — попробуем позже
+            onSendFailed(keys);
+        }
+    }
+
+    // Снимает с очереди все действия по месту (поток worker)
+    private void cancelQueued(int placeId) {
+        List<String> keys = new ArrayList<>();
+        try (Cursor c = db.getReadableDatabase().query(ParkingDb.TABLE_PENDING,
+                new String[]{ParkingDb.COL_ACTION_KEY},
+                ParkingDb.COL_PLACE_ID + " = ?", new String[]{String.valueOf(placeId)},
+                null, null, null)) {
+            while (c.moveToNext()) keys.add(c.getString(0));
+        }
+        finish(keys, CANCELLED);
+    }
+
+    private void finish(List<String> keys, int outcome) {
+        SQLiteDatabase w = db.getWritableDatabase();
+        for (String key : keys) {
+            w.delete(ParkingDb.TABLE_PENDING, ParkingDb.COL_ACTION_KEY + " = ?", new String[]{key});
+        }
+        mainHandler.post(() -> {
+            retryDelayMs = MIN_RETRY_MS;
+            notify(keys, outcome);
+        });
+    }
+
+    private void onSendFailed(List<String> keys) {
+        mainHandler.post(() -> {
+            notify(keys, QUEUED);
+            mainHandler.removeCallbacks(retryTask);
+            mainHandler.postDelayed(retryTask, retryDelayMs);
+            retryDelayMs = Math.min(retryDelayMs * 2, MAX_RETRY_MS);
+        });
+    }
+
+    // главный поток: заезд не состоялся — стоянка на этом месте не началась
+    private void cancelSession(Integer placeId) {
+        if (placeId == null || AppPrefs.getCurrentPlaceId(appContext) != placeId) return;
+        AppPrefs.edit(appContext)
+                .setCurrentPlaceId(-1)
+                .setCurrentPlaceStart(0L)
+                .commit();
+    }
+
+    // главный поток: каждый экран узнаёт результат своего действия один раз
+    private void notify(List<String> keys, int outcome) {
+        for (String key : keys) {
+            Callback callback = callbacks.remove(key);
+            if (callback != null) callback.onResult(outcome);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.smartparkingclient;
+
+import android.content.Context;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Единый сетевой слой приложения.
+ *
+ * Один OkHttpClient на весь процесс: общий пул keep-alive соединений
+ * и общий dispatcher вместо нового клиента на каждый запрос.
+ */
+public final class ApiClient {
+
+    // Адрес сервера по умолчанию (хост-машина из эмулятора Android)
+    public static final String DEFAULT_BASE_URL = "http://10.0.2.2:8000";
+
+    private static volatile ApiClient instance;
+
+    private final Context appContext;
+    private final OkHttpClient http;
+
+    private ApiClient(Context context) {
+        appContext = context.getApplicationContext();
+        http = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+                .connectTimeout(5, TimeUnit.SECONDS)
+                .readTimeout(10, TimeUnit.SECONDS)
+                .writeTimeout(10, TimeUnit.SECONDS)
+                .callTimeout(15, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .eventListenerFactory(NetworkMetrics.get().eventListenerFactory())
+                .addInterceptor(NetworkMetrics.get().interceptor())
+                .build();
+    }
+
+    public static ApiClient get(Context context) {
+        ApiClient local = instance;
+        if (local == null) {
+            synchronized (ApiClient.class) {
+                local = instance;
+                if (local == null) {
+                    local = new ApiClient(context);
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    public OkHttpClient http() {
+        return http;
+    }
+
+    // ---------- АДРЕС СЕРВЕРА ----------
+    public String baseUrl() {
+        return AppPrefs.getServerUrl(appContext);
+    }
+
+    public String url(String path) {
+        return baseUrl() + path;
+    }
+
+    // проверка адреса перед сохранением в настройках
+    public static boolean isValidBaseUrl(String url) {
+        return url != null && HttpUrl.parse(url) != null;
+    }
+
+    // ---------- ПРОГРЕВ СОЕДИНЕНИЯ ----------
+    // Лёгкий HEAD-запрос при старте, чтобы TCP-соединение уже лежало в пуле
+    // к моменту первого настоящего запроса.
+    public void warmUp() {
+        Request request = new Request.Builder()
+                .url(url("/stats"))
+                .head()
+                .build();
+
+        http.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // сервер недоступен — ничего страшного, соединимся позже
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+            }
+        });
+    }
+}
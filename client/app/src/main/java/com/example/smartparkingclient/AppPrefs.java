@@ -3,6 +3,15 @@ package com.example.smartparkingclient;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+/**
+ * Настройки и состояние сессии.
+ *
+ * Значения читаются из SharedPreferences один раз в неизменяемый Values,
+ * дальше геттеры берут поля оттуда. Запись идёт через Transaction: все
+ * изменения уходят одним SharedPreferences.Editor, а в памяти новый Values
+ * подменяет старый целиком — полузаписанного состояния не видно ни на диске,
+ * ни в памяти.
+ */
 public class AppPrefs {
 
     private static final String PREFS_NAME = "app_prefs";
@@ -19,110 +28,322 @@ public class AppPrefs {
     public static final String KEY_CURRENT_PLACE_ID = "current_place_id";     // int
     public static final String KEY_CURRENT_PLACE_START = "current_place_start"; // long
 
-    public static final String KEY_TRIP_HISTORY = "trip_history";  // String
+    public static final String KEY_TRIP_HISTORY = "trip_history";  // String, устарел (см. TripHistory)
+
+    public static final String KEY_SERVER_URL = "server_url";      // String
+
+    private static volatile Values cache;
 
 
     private static SharedPreferences getPrefs(Context context) {
-        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static Values values(Context context) {
+        Values local = cache;
+        if (local == null) {
+            synchronized (AppPrefs.class) {
+                local = cache;
+                if (local == null) {
+                    local = new Values(getPrefs(context));
+                    cache = local;
+                }
+            }
+        }
+        return local;
     }
 
 
     // ---------- ТЕМА ----------
     public static String getTheme(Context context) {
-        return getPrefs(context).getString(KEY_THEME, "light");
+        return values(context).theme;
     }
 
     public static void setTheme(Context context, String theme) {
-        getPrefs(context).edit().putString(KEY_THEME, theme).apply();
+        edit(context).setTheme(theme).commit();
     }
 
 
     // ---------- ЯЗЫК ----------
     public static String getLang(Context context) {
-        return getPrefs(context).getString(KEY_LANG, "ru");
+        return values(context).lang;
     }
 
     public static void setLang(Context context, String lang) {
-        getPrefs(context).edit().putString(KEY_LANG, lang).apply();
+        edit(context).setLang(lang).commit();
     }
 
 
     // ---------- УВЕДОМЛЕНИЯ ----------
     public static boolean isNotificationsEnabled(Context context) {
-        return getPrefs(context).getBoolean(KEY_NOTIFICATIONS, true);
+        return values(context).notifications;
     }
 
     public static void setNotificationsEnabled(Context context, boolean enabled) {
-        getPrefs(context).edit().putBoolean(KEY_NOTIFICATIONS, enabled).apply();
+        edit(context).setNotificationsEnabled(enabled).commit();
+    }
+
+
+    // ---------- АДРЕС СЕРВЕРА ----------
+    public static String getServerUrl(Context context) {
+        return values(context).serverUrl;
+    }
+
+    public static void setServerUrl(Context context, String url) {
+        edit(context).setServerUrl(url).commit();
     }
 
 
     // ---------- БАЛАНС ----------
     public static int getBalance(Context context) {
-        return getPrefs(context).getInt(KEY_BALANCE, 0);
+        return values(context).balance;
     }
 
     public static void setBalance(Context context, int value) {
-        getPrefs(context).edit().putInt(KEY_BALANCE, Math.max(0, value)).apply();
+        edit(context).setBalance(value).commit();
     }
 
     public static void addToBalance(Context context, int delta) {
-        int current = getBalance(context);
-        setBalance(context, current + Math.max(0, delta));
+        edit(context).addToBalance(delta).commit();
     }
 
 
     // ---------- АВТОРИЗАЦИЯ ----------
     public static boolean isAuthorized(Context context) {
-        return getPrefs(context).getBoolean(KEY_IS_AUTH, false);
+        return values(context).authorized;
     }
 
     public static void setAuthorized(Context context, boolean value) {
-        getPrefs(context).edit().putBoolean(KEY_IS_AUTH, value).apply();
+        edit(context).setAuthorized(value).commit();
     }
 
     public static String getUserName(Context context) {
-        return getPrefs(context).getString(KEY_USER_NAME, "Гость");
+        return values(context).userName;
     }
 
     public static void setUserName(Context context, String name) {
-        getPrefs(context).edit().putString(KEY_USER_NAME, name).apply();
+        edit(context).setUserName(name).commit();
     }
 
 
     // ---------- ТЕКУЩЕЕ МЕСТО ----------
     public static int getCurrentPlaceId(Context context) {
-        return getPrefs(context).getInt(KEY_CURRENT_PLACE_ID, -1);
+        return values(context).currentPlaceId;
     }
 
     public static void setCurrentPlaceId(Context context, int placeId) {
-        getPrefs(context).edit().putInt(KEY_CURRENT_PLACE_ID, placeId).apply();
+        edit(context).setCurrentPlaceId(placeId).commit();
     }
 
     public static long getCurrentPlaceStart(Context context) {
-        return getPrefs(context).getLong(KEY_CURRENT_PLACE_START, 0L);
+        return values(context).currentPlaceStart;
     }
 
     public static void setCurrentPlaceStart(Context context, long startTime) {
-        getPrefs(context).edit().putLong(KEY_CURRENT_PLACE_START, startTime).apply();
+        edit(context).setCurrentPlaceStart(startTime).commit();
     }
 
 
-    // ---------- ИСТОРИЯ ПОЕЗДОК ----------
-    public static void addTripToHistory(Context context, String record) {
-        String oldHistory = getTripHistory(context);
-        String newHistory = record + "\n" + oldHistory;
+    // ---------- ТРАНЗАКЦИИ ----------
 
-        getPrefs(context).edit()
-                .putString(KEY_TRIP_HISTORY, newHistory.trim())
-                .apply();
+    // Несколько изменений одной записью: AppPrefs.edit(ctx).setA(..).setB(..).commit()
+    public static Transaction edit(Context context) {
+        values(context); // кэш должен быть загружен до первой записи
+        return new Transaction(getPrefs(context));
     }
 
-    public static String getTripHistory(Context context) {
-        return getPrefs(context).getString(KEY_TRIP_HISTORY, "Пока нет записей.");
+    public static final class Transaction {
+        private static final int THEME = 1;
+        private static final int LANG = 1 << 1;
+        private static final int NOTIFICATIONS = 1 << 2;
+        private static final int SERVER_URL = 1 << 3;
+        private static final int BALANCE = 1 << 4;
+        private static final int AUTHORIZED = 1 << 5;
+        private static final int USER_NAME = 1 << 6;
+        private static final int PLACE_ID = 1 << 7;
+        private static final int PLACE_START = 1 << 8;
+
+        private final SharedPreferences prefs;
+        private final Values next = new Values();
+        private int dirty;
+        private int balanceDelta;
+
+        private Transaction(SharedPreferences prefs) {
+            this.prefs = prefs;
+        }
+
+        public Transaction setTheme(String theme) {
+            next.theme = theme;
+            dirty |= THEME;
+            return this;
+        }
+
+        public Transaction setLang(String lang) {
+            next.lang = lang;
+            dirty |= LANG;
+            return this;
+        }
+
+        public Transaction setNotificationsEnabled(boolean enabled) {
+            next.notifications = enabled;
+            dirty |= NOTIFICATIONS;
+            return this;
+        }
+
+        public Transaction setServerUrl(String url) {
+            next.serverUrl = url;
+            dirty |= SERVER_URL;
+            return this;
+        }
+
+        public Transaction setBalance(int value) {
+            next.balance = value;
+            balanceDelta = 0;
+            dirty |= BALANCE;
+            return this;
+        }
+
+        // Пополнение считается от баланса на момент commit(), а не edit()
+        public Transaction addToBalance(int delta) {
+            balanceDelta += Math.max(0, delta);
+            return this;
+        }
+
+        public Transaction setAuthorized(boolean value) {
+            next.authorized = value;
+            dirty |= AUTHORIZED;
+            return this;
+        }
+
+        public Transaction setUserName(String name) {
+            next.userName = name;
+            dirty |= USER_NAME;
+            return this;
+        }
+
+        public Transaction setCurrentPlaceId(int placeId) {
+            next.currentPlaceId = placeId;
+            dirty |= PLACE_ID;
+            return this;
+        }
+
+        public Transaction setCurrentPlaceStart(long startTime) {
+            next.currentPlaceStart = startTime;
+            dirty |= PLACE_START;
+            return this;
+        }
+
+        /**
+         * Публикует изменения в памяти и ставит на диск одну запись.
+         * Поля, которые транзакция не трогала, берутся из актуального кэша,
+         * поэтому параллельные транзакции не затирают друг друга.
+         */
+        public void commit() {
+            if (dirty == 0 && balanceDelta == 0) return;
+
+            synchronized (AppPrefs.class) {
+                Values current = cache != null ? cache : new Values(prefs);
+                Values result = current.copy();
+                SharedPreferences.Editor editor = prefs.edit();
+
+                if ((dirty & THEME) != 0) {
+                    result.theme = next.theme;
+                    editor.putString(KEY_THEME, next.theme);
+                }
+                if ((dirty & LANG) != 0) {
+                    result.lang = next.lang;
+                    editor.putString(KEY_LANG, next.lang);
+                }
+                if ((dirty & NOTIFICATIONS) != 0) {
+                    result.notifications = next.notifications;
+                    editor.putBoolean(KEY_NOTIFICATIONS, next.notifications);
+                }
+                if ((dirty & SERVER_URL) != 0) {
+                    result.serverUrl = next.serverUrl;
+                    editor.putString(KEY_SERVER_URL, next.serverUrl);
+                }
+                if ((dirty & BALANCE) != 0 || balanceDelta != 0) {
+                    int balance = (dirty & BALANCE) != 0 ? next.balance : current.balance;
+                    result.balance = Math.max(0, balance + balanceDelta);
+                    editor.putInt(KEY_BALANCE, result.balance);
+                }
+                if ((dirty & AUTHORIZED) != 0) {
+                    result.authorized = next.authorized;
+                    editor.putBoolean(KEY_IS_AUTH, next.authorized);
+                }
+                if ((dirty & USER_NAME) != 0) {
+                    result.userName = next.userName;
+                    editor.putString(KEY_USER_NAME, next.userName);
+                }
+                if ((dirty & PLACE_ID) != 0) {
+                    result.currentPlaceId = next.currentPlaceId;
+                    editor.putInt(KEY_CURRENT_PLACE_ID, next.currentPlaceId);
+                }
+                if ((dirty & PLACE_START) != 0) {
+                    result.currentPlaceStart = next.currentPlaceStart;
+                    editor.putLong(KEY_CURRENT_PLACE_START, next.currentPlaceStart);
+                }
+
+                cache = result;
+                editor.apply(); // одна атомарная запись файла
+            }
+            dirty = 0;
+            balanceDelta = 0;
+        }
     }
 
-    public static void clearHistory(Context context) {
-        getPrefs(context).edit().putString(KEY_TRIP_HISTORY, "").apply();
+    // Типизированная копия настроек; после публикации в cache не меняется
+    private static final class Values {
+        String theme;
+        String lang;
+        boolean notifications;
+        String serverUrl;
+        int balance;
+        boolean authorized;
+        String userName;
+        int currentPlaceId;
+        long currentPlaceStart;
+
+        Values(SharedPreferences prefs) {
+            theme = prefs.getString(KEY_THEME, "light");
+            lang = prefs.getString(KEY_LANG, "ru");
+            notifications = prefs.getBoolean(KEY_NOTIFICATIONS, true);
+            serverUrl = prefs.getString(KEY_SERVER_URL, ApiClient.DEFAULT_BASE_URL);
+            balance = prefs.getInt(KEY_BALANCE, 0);
+            authorized = prefs.getBoolean(KEY_IS_AUTH, false);
+            userName = prefs.getString(KEY_USER_NAME, "Гость");
+            currentPlaceId = prefs.getInt(KEY_CURRENT_PLACE_ID, -1);
+            currentPlaceStart = prefs.getLong(KEY_CURRENT_PLACE_START, 0L);
+        }
+
+        Values() {
+        }
+
+        Values copy() {
+            Values v = new Values();
+            v.theme = theme;
+            v.lang = lang;
+            v.notifications = notifications;
+            v.serverUrl = serverUrl;
+            v.balance = balance;
+            v.authorized = authorized;
+            v.userName = userName;
+            v.currentPlaceId = currentPlaceId;
+            v.currentPlaceStart = currentPlaceStart;
+            return v;
+        }
+    }
+
+
+    // ---------- ИСТОРИЯ ПОЕЗДОК (старый формат) ----------
+    // История теперь в TripHistory (SQLite). Старая строка читается
+    // один раз при создании базы и удаляется из настроек.
+    static String takeLegacyTripHistory(Context context) {
+        SharedPreferences prefs = getPrefs(context);
+        String history = prefs.getString(KEY_TRIP_HISTORY, null);
+        if (history != null) {
+            prefs.edit().remove(KEY_TRIP_HISTORY).apply();
+        }
+        return history;
     }
 }
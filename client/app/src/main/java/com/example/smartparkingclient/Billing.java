@@ -0,0 +1,23 @@
+package com.example.smartparkingclient;
+
+import com.example.smartparkingclient.core.Tariff;
+import com.example.smartparkingclient.core.TariffEngine;
+
+import java.time.ZoneId;
+
+/**
+ * Тарифы приложения. Пока у парковки одна зона с прежним тарифом
+ * (50 ₽ за начатый час); зоны и ночные ставки настраиваются здесь.
+ */
+public final class Billing {
+
+    private static final TariffEngine ENGINE =
+            TariffEngine.of(Tariff.standard(), ZoneId.systemDefault());
+
+    private Billing() {
+    }
+
+    public static TariffEngine engine() {
+        return ENGINE;
+    }
+}
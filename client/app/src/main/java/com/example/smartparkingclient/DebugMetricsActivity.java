@@ -0,0 +1,92 @@
+package com.example.smartparkingclient;
+
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Скрытый экран сетевых метрик (долгое нажатие на «Адрес сервера» в настройках).
+ *
+ * Показывает перцентили по эндпоинтам и сохраняет снимок в JSON:
+ * Android/data/<пакет>/files/metrics/metrics-<время>.json — файл можно
+ * забрать с телефона без root и прислать вместе с описанием проблемы.
+ */
+public class DebugMetricsActivity extends AppCompatActivity {
+
+    private TextView textReport;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        if ("dark".equals(AppPrefs.getTheme(this))) {
+            setTheme(R.style.Theme_SmartParkingClient_Dark);
+        } else {
+            setTheme(R.style.Theme_SmartParkingClient_Light);
+        }
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_debug_metrics);
+
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setTitle("Сетевые метрики");
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        textReport = findViewById(R.id.textReport);
+        Button btnRefresh = findViewById(R.id.btnRefresh);
+        Button btnExport = findViewById(R.id.btnExport);
+        Button btnReset = findViewById(R.id.btnReset);
+
+        btnRefresh.setOnClickListener(v -> showReport());
+        btnExport.setOnClickListener(v -> exportSnapshot());
+        btnReset.setOnClickListener(v -> {
+            NetworkMetrics.get().reset();
+            showReport();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showReport();
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        finish();
+        return true;
+    }
+
+    private void showReport() {
+        textReport.setText(NetworkMetrics.get().report());
+    }
+
+    private void exportSnapshot() {
+        File dir = new File(getExternalFilesDir(null), "metrics");
+        File file = new File(dir, "metrics-" + System.currentTimeMillis() + ".json");
+
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            byte[] json = NetworkMetrics.get().toJson().toString(2)
+                    .getBytes(StandardCharsets.UTF_8);
+            try (OutputStream out = new FileOutputStream(file)) {
+                out.write(json);
+            }
+            Toast.makeText(this, "Сохранено: " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            Toast.makeText(this, "Не удалось сохранить метрики", Toast.LENGTH_SHORT).show();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.smartparkingclient;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.smartparkingclient.core.PlacesParser;
+import com.example.smartparkingclient.core.PlacesPayload;
+import com.example.smartparkingclient.core.SpotStatus;
+import com.example.smartparkingclient.core.Stats;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.sse.EventSource;
+import okhttp3.sse.EventSourceListener;
+import okhttp3.sse.EventSources;
+
+/**
+ * Подписка на live-обновления сервера (/events, Server-Sent Events).
+ *
+ * Соединение одно на процесс: открывается при первом слушателе и закрывается,
+ * когда отписался последний. Все колбэки приходят в главном потоке.
+ */
+public final class LiveUpdates {
+
+    public interface Listener {
+        // соединение (пере)установлено — пропущенные изменения стоит догрузить
+        default void onConnected() {}
+
+        // соединение потеряно, идёт переподключение
+        default void onDisconnected() {}
+
+        // level — уровень места, -1 если сервер его не прислал
+        default void onPlaceChanged(int id, byte status, int level, long version) {}
+
+        // пачка с /ingest: несколько мест одной версией, base_version — версия до неё
+        default void onPlacesChanged(PlacesPayload places) {}
+
+        default void onStats(int free, int busy, int total, String load) {}
+    }
+
+    private static final long MIN_RECONNECT_MS = 1000;
+    private static final long MAX_RECONNECT_MS = 30000;
+
+    private static volatile LiveUpdates instance;
+
+    private final ApiClient api;
+    private final OkHttpClient streamClient;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private EventSource eventSource;
+    private long reconnectDelayMs = MIN_RECONNECT_MS;
+
+    private LiveUpdates(Context context) {
+        api = ApiClient.get(context);
+        // тот же пул соединений, но без таймаута чтения: поток открыт постоянно.
+        // Метрики вызовов потоку не нужны — его "длительность" равна времени подписки
+        streamClient = api.http().newBuilder()
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .callTimeout(0, TimeUnit.MILLISECONDS)
+                .eventListener(EventListener.NONE)
+                .build();
+    }
+
+    public static LiveUpdates get(Context context) {
+        LiveUpdates local = instance;
+        if (local == null) {
+            synchronized (LiveUpdates.class) {
+                local = instance;
+                if (local == null) {
+                    local = new LiveUpdates(context);
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    // ---------- ПОДПИСКА ----------
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        if (eventSource == null) {
+            connect();
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty()) {
+            disconnect();
+        }
+    }
+
+    // Сменился адрес сервера: старый поток закрываем, открываем к новому
+    public void reconnect() {
+        if (listeners.isEmpty()) return;
+        disconnect();
+        connect();
+    }
+
+    private void connect() {
+        mainHandler.removeCallbacks(reconnectTask);
+
+        Request request = new Request.Builder()
+                .url(api.url("/events"))
+                .header("Accept", "text/event-stream")
+                .build();
+
+        eventSource = EventSources.createFactory(streamClient)
+                .newEventSource(request, new StreamListener());
+    }
+
+    private void disconnect() {
+        mainHandler.removeCallbacks(reconnectTask);
+        if (eventSource != null) {
+            eventSource.cancel();
+            eventSource = null;
+        }
+        reconnectDelayMs = MIN_RECONNECT_MS;
+    }
+
+    private final Runnable reconnectTask = () -> {
+        if (!listeners.isEmpty()) {
+            connect();
+        }
+    };
+
+    // переподключение с растущей паузой, пока есть слушатели
+    private void scheduleReconnect(EventSource source) {
+        mainHandler.post(() -> {
+            if (source != eventSource || listeners.isEmpty()) return;
+            for (Listener l : listeners) l.onDisconnected();
+            mainHandler.postDelayed(reconnectTask, reconnectDelayMs);
+            reconnectDelayMs = Math.min(reconnectDelayMs * 2, MAX_RECONNECT_MS);
+        });
+    }
+
+    // ---------- РАЗБОР СОБЫТИЙ ----------
+    private class StreamListener extends EventSourceListener {
+
+        @Override
+        public void onOpen(EventSource source, Response response) {
+            mainHandler.post(() -> {
+                if (source != eventSource) return;
+                reconnectDelayMs = MIN_RECONNECT_MS;
+                for (Listener l : listeners) l.onConnected();
+            });
+        }
+
+        @Override
+        public void onEvent(EventSource source, String id, String type, String data) {
+            try {
+                if ("place".equals(type)) {
+                    JSONObject obj = new JSONObject(data);
+                    int placeId = obj.getInt("id");
+                    byte status = SpotStatus.fromWire(obj.getString("status"));
+                    int level = obj.optInt("level", -1);
+                    long version = obj.getLong("version");
+                    mainHandler.post(() -> {
+                        if (source != eventSource) return;
+                        for (Listener l : listeners) {
+                            l.onPlaceChanged(placeId, status, level, version);
+                        }
+                    });
+
+                } else if ("places".equals(type)) {
+                    PlacesPayload places = PlacesParser.parse(new ByteArrayInputStream(
+                            data.getBytes(StandardCharsets.UTF_8)));
+                    places.full = false;
+                    mainHandler.post(() -> {
+                        if (source != eventSource) return;
+                        for (Listener l : listeners) l.onPlacesChanged(places);
+                    });
+
+                } else if ("stats".equals(type)) {
+                    Stats stats = Stats.parse(new ByteArrayInputStream(
+                            data.getBytes(StandardCharsets.UTF_8)));
+                    mainHandler.post(() -> {
+                        if (source != eventSource) return;
+                        for (Listener l : listeners) {
+                            l.onStats(stats.free, stats.busy, stats.total, stats.load);
+                        }
+                    });
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        @Override
+        public void onClosed(EventSource source) {
+            scheduleReconnect(source);
+        }
+
+        @Override
+        public void onFailure(EventSource source, Throwable t, Response response) {
+            if (response != null) response.close();
+            scheduleReconnect(source);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.example.smartparkingclient;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
@@ -18,9 +20,14 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 
+import com.example.smartparkingclient.core.Levels;
+import com.example.smartparkingclient.core.ParkingSnapshot;
+import com.example.smartparkingclient.core.TariffEngine;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.navigation.NavigationView;
 
+import java.util.List;
+
 public class MainActivity extends AppCompatActivity {
 
     // Drawer / Navigation
@@ -45,8 +52,51 @@ public class MainActivity extends AppCompatActivity {
     // Текст статистики
     private android.widget.TextView textStats;
 
-    // Для таймера статистики
-    private android.os.Handler statsHandler = new android.os.Handler();
+    // Текущая стоянка
+    private android.widget.TextView textSession;
+    private final Handler sessionHandler = new Handler(Looper.getMainLooper());
+    private final Runnable sessionTick = new Runnable() {
+        @Override
+        public void run() {
+            if (updateSession()) {
+                sessionHandler.postDelayed(this, 1000);
+            }
+        }
+    };
+
+    // Статистика считается из общего снимка парковки (без запроса /stats)
+    private final ParkingRepository.Listener statsListener = new ParkingRepository.Listener() {
+        @Override
+        public void onSnapshot(ParkingSnapshot snapshot) {
+            showStats();
+        }
+
+        @Override
+        public void onSpotsChanged(int[] indexes) {
+            showStats();
+        }
+
+        @Override
+        public void onLevels(Levels levels) {
+            showStats();
+        }
+
+        @Override
+        public void onLoadFailed(String message) {
+            textStats.setText("Ошибка соединения с сервером");
+        }
+
+        @Override
+        public void onConnectionLost() {
+            textStats.setText("Ошибка соединения с сервером");
+        }
+
+        // ответ без изменений ничего не перерисовывает — убираем ошибку здесь
+        @Override
+        public void onConnectionRestored() {
+            showStats();
+        }
+    };
 
     // Для отслеживания темы
     private String lastTheme;
@@ -130,7 +180,7 @@ public class MainActivity extends AppCompatActivity {
 
         // ---------- статистика ----------
         textStats = findViewById(R.id.textStats);
-        startStatsAutoUpdate();
+        textSession = findViewById(R.id.textSession);
     }
 
     // ---------- применение темы ----------
@@ -160,77 +210,61 @@ public class MainActivity extends AppCompatActivity {
         }
 
         updateHeader();
-        startStatsAutoUpdate();
+        ParkingRepository.get(this).addListener(statsListener);
+        sessionHandler.post(sessionTick);
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        statsHandler.removeCallbacksAndMessages(null);
+        ParkingRepository.get(this).removeListener(statsListener);
+        sessionHandler.removeCallbacks(sessionTick);
     }
 
-    // ---------- таймер статистики ----------
-    private void startStatsAutoUpdate() {
-        statsHandler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                loadStats();
-                statsHandler.postDelayed(this, 5000);
-            }
-        }, 1000);
-    }
-
-    // ---------- запрос статистики ----------
-    private void loadStats() {
-        String url = "http://192.168.1.126:8000/stats";
-
-        okhttp3.Request request = new okhttp3.Request.Builder()
-                .url(url)
-                .build();
-
-        new okhttp3.OkHttpClient().newCall(request).enqueue(new okhttp3.Callback() {
-            @Override
-            public void onFailure(okhttp3.Call call, java.io.IOException e) {
-                runOnUiThread(() ->
-                        textStats.setText("Ошибка соединения с сервером")
-                );
-            }
-
-            @Override
-            public void onResponse(okhttp3.Call call, okhttp3.Response response)
-                    throws java.io.IOException {
-
-                if (!response.isSuccessful() || response.body() == null) {
-                    runOnUiThread(() ->
-                            textStats.setText("Ошибка данных")
-                    );
-                    return;
-                }
-
-                String json = response.body().string();
-
-                try {
-                    org.json.JSONObject obj = new org.json.JSONObject(json);
+    // ---------- текущая стоянка ----------
+    // false — занятого места нет, обновлять нечего
+    private boolean updateSession() {
+        int placeId = AppPrefs.getCurrentPlaceId(this);
+        if (placeId == -1) {
+            textSession.setVisibility(View.GONE);
+            return false;
+        }
 
-                    int free = obj.getInt("free");
-                    int busy = obj.getInt("busy");
-                    int total = obj.getInt("total");
-                    String load = obj.getString("load");
+        long start = AppPrefs.getCurrentPlaceStart(this);
+        long now = System.currentTimeMillis();
+        long minutes = TariffEngine.minutes(start, now);
+        int cost = Billing.engine().cost(TariffEngine.DEFAULT_ZONE, start, now);
 
-                    String text = "Свободно: " + free +
-                            " | Занято: " + busy +
-                            " | Всего: " + total +
-                            " | Загруженность: " + load;
+        textSession.setText("Место № " + placeId + ": " + minutes + " мин, к оплате " + cost + " ₽");
+        textSession.setVisibility(View.VISIBLE);
+        return true;
+    }
 
-                    runOnUiThread(() -> textStats.setText(text));
+    // ---------- статистика ----------
+    // счётчики снимка обновляются за O(1) при каждом изменении места
+    // Итоги по всей парковке — из счётчиков уровней; у сервера без уровней
+    // снимок и есть вся парковка
+    private void showStats() {
+        ParkingRepository repository = ParkingRepository.get(this);
+        Levels levels = repository.levels();
+        ParkingSnapshot snapshot = repository.snapshot();
+
+        String text;
+        if (levels != null) {
+            text = "Свободно: " + levels.free() +
+                    " | Занято: " + levels.busy() +
+                    " | Всего: " + levels.total() +
+                    " | Загруженность: " + levels.loadPercent() + "%";
+        } else if (snapshot != null) {
+            text = "Свободно: " + snapshot.freeCount() +
+                    " | Занято: " + snapshot.busyCount() +
+                    " | Всего: " + snapshot.size() +
+                    " | Загруженность: " + snapshot.loadPercent() + "%";
+        } else {
+            return;
+        }
 
-                } catch (Exception e) {
-                    runOnUiThread(() ->
-                            textStats.setText("Ошибка обработки данных")
-                    );
-                }
-            }
-        });
+        textStats.setText(text);
     }
 
     // ---------- нижняя навигация ----------
@@ -257,19 +291,44 @@ public class MainActivity extends AppCompatActivity {
 
     // ---------- профиль ----------
     private void showProfileDialog() {
+        showProfileDialog(Long.MAX_VALUE);
+    }
+
+    // История показывается страницами: beforeRowId — последняя показанная запись.
+    // Страница читается из базы в фоне, диалог — когда она готова
+    private void showProfileDialog(long beforeRowId) {
+        TripHistory.loadPage(this, beforeRowId, TripHistory.PAGE_SIZE, trips -> {
+            if (isFinishing() || isDestroyed()) return;
+            showProfileDialog(beforeRowId, trips);
+        });
+    }
+
+    private void showProfileDialog(long beforeRowId, List<TripHistory.Trip> trips) {
         String name = AppPrefs.getUserName(this);
         int balance = AppPrefs.getBalance(this);
-        String history = AppPrefs.getTripHistory(this);
+
+        StringBuilder history = new StringBuilder();
+        for (TripHistory.Trip trip : trips) {
+            history.append(trip.format()).append('\n');
+        }
+        if (trips.isEmpty()) {
+            history.append(beforeRowId == Long.MAX_VALUE ? "Пока нет записей." : "Больше записей нет.");
+        }
 
         String message = "Имя: " + name +
                 "\nБаланс: " + balance + " ₽" +
-                "\n\nИстория поездок:\n" + history;
+                "\n\nИстория поездок:\n" + history.toString().trim();
 
-        new AlertDialog.Builder(this)
+        AlertDialog.Builder builder = new AlertDialog.Builder(this)
                 .setTitle("Профиль")
                 .setMessage(message)
-                .setPositiveButton("OK", null)
-                .show();
+                .setPositiveButton("OK", null);
+
+        if (trips.size() == TripHistory.PAGE_SIZE) {
+            long lastRowId = trips.get(trips.size() - 1).rowId;
+            builder.setNeutralButton("Ещё", (dialog, which) -> showProfileDialog(lastRowId));
+        }
+        builder.show();
     }
 
     // ---------- авторизация ----------
@@ -298,9 +357,11 @@ public class MainActivity extends AppCompatActivity {
                     isAuthorized = true;
                     currentUserName = name;
 
-                    AppPrefs.setAuthorized(this, true);
-                    AppPrefs.setUserName(this, name);
-                    AppPrefs.setBalance(this, 150);
+                    AppPrefs.edit(this)
+                            .setAuthorized(true)
+                            .setUserName(name)
+                            .setBalance(150)
+                            .commit();
 
                     updateHeader();
 
@@ -400,12 +461,13 @@ public class MainActivity extends AppCompatActivity {
                 isAuthorized = false;
                 currentUserName = "Гость";
 
-                AppPrefs.setAuthorized(this, false);
-                AppPrefs.setUserName(this, "Гость");
-
-                AppPrefs.setBalance(this, 0);
-                AppPrefs.setCurrentPlaceId(this, -1);
-                AppPrefs.setCurrentPlaceStart(this, 0L);
+                AppPrefs.edit(this)
+                        .setAuthorized(false)
+                        .setUserName("Гость")
+                        .setBalance(0)
+                        .setCurrentPlaceId(-1)
+                        .setCurrentPlaceStart(0L)
+                        .commit();
 
                 updateHeader();
                 Toast.makeText(this, "Вы вышли из аккаунта", Toast.LENGTH_SHORT).show();
@@ -0,0 +1,275 @@
+package com.example.smartparkingclient;
+
+import com.example.smartparkingclient.core.Histogram;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Сетевые метрики по эндпоинтам: время фаз запроса, размеры, повторы и причины ошибок.
+ *
+ * Фазы (DNS, соединение, первый байт ответа, весь вызов), размеры и повторы
+ * считает EventListener; перехватчик разбирает результат ответа (HTTP-коды).
+ * Смотреть — DebugMetricsActivity (долгое нажатие на «Адрес сервера» в настройках).
+ */
+public final class NetworkMetrics {
+
+    public static final class Endpoint {
+        public final String path;
+        public final Histogram dnsMs = new Histogram();
+        public final Histogram connectMs = new Histogram();
+        public final Histogram ttfbMs = new Histogram();
+        public final Histogram totalMs = new Histogram();
+        public final Histogram requestBytes = new Histogram();
+        public final Histogram responseBytes = new Histogram();
+        public final AtomicLong calls = new AtomicLong();
+        public final AtomicLong failures = new AtomicLong();
+        public final AtomicLong retries = new AtomicLong();
+        public final Map<String, AtomicLong> failureCauses = new ConcurrentHashMap<>();
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+
+        void fail(String cause) {
+            failures.incrementAndGet();
+            failureCauses.computeIfAbsent(cause, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static final NetworkMetrics INSTANCE = new NetworkMetrics();
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile long since = System.currentTimeMillis();
+
+    private NetworkMetrics() {
+    }
+
+    public static NetworkMetrics get() {
+        return INSTANCE;
+    }
+
+    // Подключение к клиенту: builder.eventListenerFactory(...).addInterceptor(...)
+    public EventListener.Factory eventListenerFactory() {
+        return call -> new CallMetrics(endpoint(call.request()));
+    }
+
+    public Interceptor interceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            // 304 — не ошибка: ответ не изменился (If-None-Match)
+            if (!response.isSuccessful() && response.code() != 304) {
+                endpoint(request).fail("HTTP " + response.code());
+            }
+            return response;
+        };
+    }
+
+    public List<Endpoint> endpoints() {
+        List<Endpoint> list = new ArrayList<>(endpoints.values());
+        list.sort((a, b) -> a.path.compareTo(b.path));
+        return list;
+    }
+
+    public void reset() {
+        endpoints.clear();
+        since = System.currentTimeMillis();
+    }
+
+    // Запросы группируются по пути без параметров (/places?since=5 → /places)
+    private Endpoint endpoint(Request request) {
+        return endpoints.computeIfAbsent(request.url().encodedPath(), Endpoint::new);
+    }
+
+    // ---------- ОТЧЁТ ----------
+
+    // Текст для экрана: по эндпоинту p50/p90/p99/max каждой фазы
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("С момента ").append(new SimpleDateFormat("dd.MM HH:mm:ss",
+                Locale.getDefault()).format(new Date(since))).append("\n\n");
+
+        List<Endpoint> list = endpoints();
+        if (list.isEmpty()) sb.append("Запросов ещё не было.\n");
+
+        for (Endpoint e : list) {
+            sb.append(e.path).append("  вызовов: ").append(e.calls.get())
+                    .append(", ошибок: ").append(e.failures.get())
+                    .append(", повторов: ").append(e.retries.get()).append('\n');
+            sb.append("            p50    p90    p99    max\n");
+            row(sb, "DNS, мс", e.dnsMs);
+            row(sb, "conn, мс", e.connectMs);
+            row(sb, "TTFB, мс", e.ttfbMs);
+            row(sb, "всего, мс", e.totalMs);
+            row(sb, "запрос, Б", e.requestBytes);
+            row(sb, "ответ, Б", e.responseBytes);
+            for (Map.Entry<String, AtomicLong> cause : e.failureCauses.entrySet()) {
+                sb.append("  ").append(cause.getKey()).append(": ").append(cause.getValue().get()).append('\n');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void row(StringBuilder sb, String name, Histogram h) {
+        if (h.count() == 0) return;
+        sb.append(String.format(Locale.US, "%-10s%6d %6d %6d %6d%n", name,
+                h.percentile(50), h.percentile(90), h.percentile(99), h.max()));
+    }
+
+    // Снимок для экспорта в файл
+    public JSONObject toJson() throws JSONException {
+        JSONObject root = new JSONObject();
+        root.put("since", since);
+        root.put("exportedAt", System.currentTimeMillis());
+
+        JSONObject all = new JSONObject();
+        for (Endpoint e : endpoints()) {
+            JSONObject obj = new JSONObject();
+            obj.put("calls", e.calls.get());
+            obj.put("failures", e.failures.get());
+            obj.put("retries", e.retries.get());
+            obj.put("dnsMs", histogramJson(e.dnsMs));
+            obj.put("connectMs", histogramJson(e.connectMs));
+            obj.put("ttfbMs", histogramJson(e.ttfbMs));
+            obj.put("totalMs", histogramJson(e.totalMs));
+            obj.put("requestBytes", histogramJson(e.requestBytes));
+            obj.put("responseBytes", histogramJson(e.responseBytes));
+
+            JSONObject causes = new JSONObject();
+            for (Map.Entry<String, AtomicLong> cause : e.failureCauses.entrySet()) {
+                causes.put(cause.getKey(), cause.getValue().get());
+            }
+            obj.put("failureCauses", causes);
+            all.put(e.path, obj);
+        }
+        root.put("endpoints", all);
+        return root;
+    }
+
+    private static JSONObject histogramJson(Histogram h) throws JSONException {
+        return new JSONObject()
+                .put("count", h.count())
+                .put("mean", h.mean())
+                .put("p50", h.percentile(50))
+                .put("p90", h.percentile(90))
+                .put("p99", h.percentile(99))
+                .put("max", h.max());
+    }
+
+    // ---------- ФАЗЫ ОДНОГО ВЫЗОВА ----------
+    // Слушатель создаётся на каждый вызов, события приходят последовательно
+    private static final class CallMetrics extends EventListener {
+        private final Endpoint endpoint;
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long requestBytes;
+        private long responseBytes;
+        private int attempts;
+        private boolean ttfbRecorded;
+
+        CallMetrics(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+            endpoint.calls.incrementAndGet();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+            endpoint.dnsMs.record(millisSince(dnsStart));
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            endpoint.connectMs.record(millisSince(connectStart));
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress address, Proxy proxy,
+                                  Protocol protocol, IOException ioe) {
+            endpoint.connectMs.record(millisSince(connectStart));
+        }
+
+        // каждая попытка отправить запрос (повтор после обрыва, редирект) начинается здесь
+        @Override
+        public void requestHeadersStart(Call call) {
+            attempts++;
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            requestBytes += byteCount;
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            if (!ttfbRecorded) {
+                ttfbRecorded = true;
+                endpoint.ttfbMs.record(millisSince(callStart));
+            }
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            responseBytes += byteCount;
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            finish();
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            endpoint.fail(ioe.getClass().getSimpleName());
+            finish();
+        }
+
+        private void finish() {
+            endpoint.totalMs.record(millisSince(callStart));
+            endpoint.requestBytes.record(requestBytes);
+            endpoint.responseBytes.record(responseBytes);
+            if (attempts > 1) endpoint.retries.addAndGet(attempts - 1);
+        }
+
+        private static long millisSince(long startNanos) {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+    }
+}
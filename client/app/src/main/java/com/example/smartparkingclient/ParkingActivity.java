@@ -2,42 +2,39 @@ package com.example.smartparkingclient;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.view.Gravity;
-import android.widget.LinearLayout;
+import android.view.View;
+import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.smartparkingclient.core.Levels;
+import com.example.smartparkingclient.core.ParkingSnapshot;
+import com.example.smartparkingclient.core.SpotStatus;
+import com.example.smartparkingclient.core.TariffEngine;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.google.android.material.tabs.TabLayout;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.IOException;
-
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
 
 public class ParkingActivity extends AppCompatActivity {
 
-    private static final String BASE_URL = "http://10.0.2.2:8000";
-
-    private LinearLayout leftColumn;
-    private LinearLayout rightColumn;
+    private ParkingLotView parkingLot;
     private TextView titleText;
+    private TabLayout levelTabs;
 
-    private final OkHttpClient client = new OkHttpClient();
+    private ParkingRepository repository;
     private String mode = "enter"; // "enter" или "exit"
 
     private String lastTheme;
 
+    private String title;
+    private boolean hintsShown;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         applyThemeFromPrefs();
@@ -45,16 +42,44 @@ public class ParkingActivity extends AppCompatActivity {
         setContentView(R.layout.activity_parking);
 
         titleText = findViewById(R.id.titleText);
-        leftColumn = findViewById(R.id.leftColumn);
-        rightColumn = findViewById(R.id.rightColumn);
+        parkingLot = findViewById(R.id.parkingLot);
+        levelTabs = findViewById(R.id.levelTabs);
+
+        // текущее место берётся в момент нажатия, а не при отрисовке
+        parkingLot.setOnPlaceClickListener((id, status) ->
+                handlePlaceClick(id, status, AppPrefs.getCurrentPlaceId(this)));
+        // места уровня приходят страницами: следующая — по мере прокрутки
+        parkingLot.setOnNearEndListener(() -> repository.loadMore());
+
+        levelTabs.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
+            @Override
+            public void onTabSelected(TabLayout.Tab tab) {
+                repository.selectLevel(tab.getPosition());
+            }
+
+            @Override
+            public void onTabUnselected(TabLayout.Tab tab) {
+            }
+
+            @Override
+            public void onTabReselected(TabLayout.Tab tab) {
+            }
+        });
 
         String m = getIntent().getStringExtra("mode");
         if (m != null) mode = m;
 
         if ("exit".equals(mode)) {
-            titleText.setText("Выберите место для выезда");
+            title = "Выберите место для выезда";
         } else {
-            titleText.setText("Выберите место для заезда");
+            title = "Выберите место для заезда";
+        }
+        titleText.setText(title);
+
+        Button bestPlace = findViewById(R.id.btnBestPlace);
+        if ("enter".equals(mode)) {
+            bestPlace.setVisibility(View.VISIBLE);
+            bestPlace.setOnClickListener(v -> enterBestPlace());
         }
 
         // нижняя навигация
@@ -88,7 +113,10 @@ public class ParkingActivity extends AppCompatActivity {
             // только визуально подсвечиваем вкладку, БЕЗ вызова listener
             bottomNav.getMenu().findItem(R.id.tab_home).setChecked(true);
         }
-        loadParkingPlaces();
+
+        // снимок и его обновление живут в ParkingRepository (подписка в onResume):
+        // последнее известное состояние показывается сразу, сервер догоняет дельтой
+        repository = ParkingRepository.get(this);
     }
 
     // ====== ТЕМЫ ======
@@ -116,109 +144,108 @@ public class ParkingActivity extends AppCompatActivity {
             recreate();
             return;
         }
+        repository.addListener(parkingListener);
     }
 
-    // ====== Загрузка мест с сервера ======
-    private void loadParkingPlaces() {
-        Request request = new Request.Builder()
-                .url(BASE_URL + "/places")
-                .build();
+    @Override
+    protected void onPause() {
+        super.onPause();
+        repository.removeListener(parkingListener);
+    }
 
-        client.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
-                e.printStackTrace();
-                runOnUiThread(() ->
-                        Toast.makeText(ParkingActivity.this,
-                                "Ошибка соединения с сервером",
-                                Toast.LENGTH_LONG).show());
+    // ====== Состояние парковки ======
+    private final ParkingRepository.Listener parkingListener = new ParkingRepository.Listener() {
+        @Override
+        public void onSnapshot(ParkingSnapshot snapshot) {
+            parkingLot.setSnapshot(snapshot);
+        }
+
+        @Override
+        public void onSpotsChanged(int[] indexes) {
+            for (int index : indexes) {
+                parkingLot.onSpotChanged(index);
             }
+        }
 
-            @Override
-            public void onResponse(Call call, Response response) throws IOException {
-                if (!response.isSuccessful() || response.body() == null) {
-                    runOnUiThread(() ->
-                            Toast.makeText(ParkingActivity.this,
-                                    "Ошибка ответа сервера",
-                                    Toast.LENGTH_LONG).show());
-                    return;
-                }
+        @Override
+        public void onStaleChanged(boolean stale, long savedAt) {
+            setStale(stale, savedAt);
+            if (!stale) showHints();
+        }
 
-                String jsonData = response.body().string();
-                try {
-                    JSONObject json = new JSONObject(jsonData);
-                    JSONArray places = json.getJSONArray("places");
-                    int myPlaceId = AppPrefs.getCurrentPlaceId(ParkingActivity.this);
-
-                    runOnUiThread(() -> {
-
-                        // защита от null, на всякий случай
-                        if (leftColumn == null || rightColumn == null) {
-                            Toast.makeText(ParkingActivity.this,
-                                    "Ошибка интерфейса (колонки парковки не найдены)",
-                                    Toast.LENGTH_LONG).show();
-                            return;
-                        }
-
-                        leftColumn.removeAllViews();
-                        rightColumn.removeAllViews();
-
-                        for (int i = 0; i < places.length(); i++) {
-                            JSONObject place = places.optJSONObject(i);
-                            if (place == null) continue;
-
-                            int id = place.optInt("id");
-                            String status = place.optString("status"); // "free" или "busy"
-
-                            TextView tv = createPlaceView(id, status, myPlaceId);
-
-                            if (i % 2 == 0) {
-                                leftColumn.addView(tv);
-                            } else {
-                                rightColumn.addView(tv);
-                            }
-                        }
-
-                        if ("exit".equals(mode) && myPlaceId == -1) {
-                            Toast.makeText(ParkingActivity.this,
-                                    "У вас нет занятого места для выезда",
-                                    Toast.LENGTH_LONG).show();
-                        }
-
-                        if ("enter".equals(mode) && myPlaceId != -1) {
-                            Toast.makeText(ParkingActivity.this,
-                                    "У вас уже занято место № " + myPlaceId,
-                                    Toast.LENGTH_LONG).show();
-                        }
-                    });
-
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+        @Override
+        public void onLoadFailed(String message) {
+            Toast.makeText(ParkingActivity.this, message, Toast.LENGTH_LONG).show();
+        }
+
+        @Override
+        public void onLevels(Levels levels) {
+            showLevels(levels);
+        }
+    };
+
+    // Вкладки уровней со свободными местами; у парковки в один уровень их нет
+    private void showLevels(Levels levels) {
+        if (levels.size() < 2) {
+            levelTabs.setVisibility(View.GONE);
+            return;
+        }
+        levelTabs.setVisibility(View.VISIBLE);
+
+        // число вкладок меняется редко — обычно только подписи
+        if (levelTabs.getTabCount() != levels.size()) {
+            levelTabs.removeAllTabs();
+            for (int i = 0; i < levels.size(); i++) {
+                levelTabs.addTab(levelTabs.newTab(), false);
             }
-        });
+        }
+        for (int i = 0; i < levels.size(); i++) {
+            Levels.Level level = levels.get(i);
+            levelTabs.getTabAt(i).setText("Уровень " + (level.level + 1) + " · " + level.free);
+        }
+
+        TabLayout.Tab current = levelTabs.getTabAt(repository.level());
+        if (current != null && !current.isSelected()) current.select();
     }
 
-    private TextView createPlaceView(int id, String status, int myPlaceId) {
-        TextView tv = new TextView(this);
-        tv.setText("Место " + id + ": " +
-                ("free".equals(status) ? "Свободно" : "Занято"));
-        tv.setTextSize(16);
-        tv.setPadding(16, 16, 16, 16);
-        tv.setGravity(Gravity.CENTER_VERTICAL);
+    // подсказки показываем только при первой загрузке экрана
+    private void showHints() {
+        if (hintsShown) return;
+        hintsShown = true;
 
-        if ("free".equals(status)) {
-            tv.setBackgroundColor(0xFFA8E6CF); // зелёный
-        } else {
-            tv.setBackgroundColor(0xFFFF8C8C); // красный
+        int myPlaceId = AppPrefs.getCurrentPlaceId(this);
+        if ("exit".equals(mode) && myPlaceId == -1) {
+            Toast.makeText(this,
+                    "У вас нет занятого места для выезда",
+                    Toast.LENGTH_LONG).show();
         }
 
-        tv.setOnClickListener(v -> handlePlaceClick(id, status, myPlaceId));
+        if ("enter".equals(mode) && myPlaceId != -1) {
+            Toast.makeText(this,
+                    "У вас уже занято место № " + myPlaceId,
+                    Toast.LENGTH_LONG).show();
+        }
+    }
 
-        return tv;
+    // Снимок из кэша: схема бледнее, в заголовке время сохранения
+    private void setStale(boolean stale, long savedAt) {
+        parkingLot.setStale(stale);
+        if (!stale) {
+            titleText.setText(title);
+            return;
+        }
+        String time = new SimpleDateFormat("HH:mm", Locale.getDefault()).format(new Date(savedAt));
+        titleText.setText(title + "\nДанные на " + time + ", обновляются…");
     }
 
-    private void handlePlaceClick(int id, String status, int myPlaceId) {
+    private void handlePlaceClick(int id, byte status, int myPlaceId) {
+        if (repository.isStale()) {
+            Toast.makeText(this,
+                    "Данные ещё обновляются, подождите",
+                    Toast.LENGTH_SHORT).show();
+            return;
+        }
+
         if ("enter".equals(mode)) {
             if (myPlaceId != -1) {
                 Toast.makeText(this,
@@ -227,7 +254,7 @@ public class ParkingActivity extends AppCompatActivity {
                 return;
             }
 
-            if (!"free".equals(status)) {
+            if (status != SpotStatus.FREE) {
                 Toast.makeText(this,
                         "Место уже занято",
                         Toast.LENGTH_SHORT).show();
@@ -251,7 +278,7 @@ public class ParkingActivity extends AppCompatActivity {
                 return;
             }
 
-            if (!"busy".equals(status)) {
+            if (status != SpotStatus.BUSY) {
                 Toast.makeText(this,
                         "Это место уже свободно",
                         Toast.LENGTH_SHORT).show();
@@ -262,13 +289,52 @@ public class ParkingActivity extends AppCompatActivity {
         }
     }
 
+    // Ближайшее к въезду свободное место — из индекса снимка, без перебора схемы
+    private void enterBestPlace() {
+        ParkingSnapshot snapshot = repository.snapshot();
+        if (snapshot == null || repository.isStale()) {
+            Toast.makeText(this,
+                    "Данные ещё обновляются, подождите",
+                    Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        int myPlaceId = AppPrefs.getCurrentPlaceId(this);
+        if (myPlaceId != -1) {
+            Toast.makeText(this,
+                    "У вас уже занято место № " + myPlaceId,
+                    Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        int best = snapshot.bestFree();
+        if (best >= 0) {
+            showEnterDialog(snapshot.idAt(best));
+            return;
+        }
+
+        // среди загруженных страниц свободных нет, но на уровне они есть
+        Levels levels = repository.levels();
+        int level = repository.level();
+        if (levels != null && level < levels.size() && levels.get(level).free > 0) {
+            repository.loadMore();
+            Toast.makeText(this,
+                    "Свободные места дальше от въезда, загружаем…",
+                    Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(this,
+                    "Свободных мест нет",
+                    Toast.LENGTH_SHORT).show();
+        }
+    }
+
     private void showEnterDialog(int placeId) {
         new AlertDialog.Builder(this)
                 .setTitle("Заезд на парковку")
                 .setMessage("Вы выбрали место № " + placeId +
                         ".\nЧерез 5 секунд откроется шлагбаум.\nПриятного времяпрепровождения!")
                 .setPositiveButton("OK", (d, w) ->
-                        updatePlaceStatus(placeId, "busy", true))
+                        updatePlaceStatus(placeId, SpotStatus.BUSY, true))
                 .setNegativeButton("Отмена", null)
                 .show();
     }
@@ -282,100 +348,90 @@ public class ParkingActivity extends AppCompatActivity {
                 .setTitle("Выезд с парковки")
                 .setMessage(message)
                 .setPositiveButton("OK", (d, w) ->
-                        updatePlaceStatus(placeId, "free", false))
+                        updatePlaceStatus(placeId, SpotStatus.FREE, false))
                 .setNegativeButton("Отмена", null)
                 .show();
     }
 
-    private void updatePlaceStatus(int id, String newStatus, boolean isEnter) {
-        try {
-            JSONObject json = new JSONObject();
-            json.put("id", id);
-            json.put("status", newStatus);
-
-            MediaType JSON = MediaType.parse("application/json; charset=utf-8");
-            RequestBody body = RequestBody.create(json.toString(), JSON);
-
-            Request request = new Request.Builder()
-                    .url(BASE_URL + "/update")
-                    .post(body)
-                    .build();
-
-            client.newCall(request).enqueue(new Callback() {
-                @Override
-                public void onFailure(Call call, IOException e) {
-                    e.printStackTrace();
-                    runOnUiThread(() ->
-                            Toast.makeText(ParkingActivity.this,
-                                    "Ошибка при обновлении статуса",
-                                    Toast.LENGTH_SHORT).show());
-                }
+    // Сессия (место, время, списание) фиксируется сразу, а действие для сервера
+    // ложится в ActionQueue: без связи оно уйдёт, когда сеть появится
+    private void updatePlaceStatus(int id, byte newStatus, boolean isEnter) {
+        if (isEnter) {
+            onEntered(id);
+        } else {
+            onExited(id);
+        }
+        repository.applyLocal(id, newStatus); // показываем сразу, сервер подтвердит
 
-                @Override
-                public void onResponse(Call call, Response response) throws IOException {
-                    if (!response.isSuccessful()) {
-                        runOnUiThread(() ->
-                                Toast.makeText(ParkingActivity.this,
-                                        "Ошибка ответа сервера",
-                                        Toast.LENGTH_SHORT).show());
-                        return;
-                    }
-
-                    runOnUiThread(() -> {
-                        if (isEnter) {
-                            // === ЗАЕЗД ===
-                            AppPrefs.setCurrentPlaceId(ParkingActivity.this, id);
-                            AppPrefs.setCurrentPlaceStart(ParkingActivity.this,
-                                    System.currentTimeMillis());
-
-                            if (AppPrefs.isNotificationsEnabled(ParkingActivity.this)) {
-                                Toast.makeText(ParkingActivity.this,
-                                        "Место № " + id + " занято",
-                                        Toast.LENGTH_SHORT).show();
-                            }
-                        } else {
-                            // === ВЫЕЗД ===
-                            long start = AppPrefs.getCurrentPlaceStart(ParkingActivity.this);
-                            long now = System.currentTimeMillis();
-
-                            long minutes = 1;
-                            if (start > 0 && now > start) {
-                                minutes = (now - start) / 60000; // минуты
-                                if (minutes <= 0) minutes = 1;
-                            }
-
-                            int pricePerHour = 50;
-                            int hours = (int) ((minutes + 59) / 60); // округление вверх
-                            if (hours <= 0) hours = 1;
-                            int cost = hours * pricePerHour;
-
-                            int balanceBefore = AppPrefs.getBalance(ParkingActivity.this);
-                            int balanceAfter = Math.max(0, balanceBefore - cost);
-                            AppPrefs.setBalance(ParkingActivity.this, balanceAfter);
-
-                            // сбрасываем данные по занятости
-                            AppPrefs.setCurrentPlaceId(ParkingActivity.this, -1);
-                            AppPrefs.setCurrentPlaceStart(ParkingActivity.this, 0L);
-
-                            String record = "Место " + id +
-                                    ", " + minutes + " мин (" + hours + " ч), " +
-                                    "списано " + cost + " ₽. Остаток: " + balanceAfter + " ₽";
-                            AppPrefs.addTripToHistory(ParkingActivity.this, record);
-
-                            if (AppPrefs.isNotificationsEnabled(ParkingActivity.this)) {
-                                Toast.makeText(ParkingActivity.this,
-                                        "Списано " + cost + " ₽. Остаток: " + balanceAfter + " ₽",
-                                        Toast.LENGTH_LONG).show();
-                            }
-                        }
-
-                        loadParkingPlaces();
-                    });
+        ActionQueue.get(this).submit(id, newStatus, outcome -> {
+            if (outcome == ActionQueue.QUEUED) {
+                Toast.makeText(this,
+                        "Нет связи с сервером: действие будет отправлено позже",
+                        Toast.LENGTH_LONG).show();
+                return;
+            }
+            if (outcome == ActionQueue.CONFLICT) {
+                // заезд: стоянку ActionQueue уже отменил, схема показывает место занятым.
+                // выезд: место на сервере уже свободно — сообщать нечего
+                if (isEnter) {
+                    Toast.makeText(this,
+                            "Место № " + id + " уже занял другой водитель",
+                            Toast.LENGTH_LONG).show();
                 }
-            });
+                return;
+            }
+            if (outcome == ActionQueue.REJECTED) {
+                Toast.makeText(this,
+                        "Сервер отклонил действие с местом № " + id,
+                        Toast.LENGTH_SHORT).show();
+                repository.reload(); // вернуть место к состоянию на сервере
+            }
+            // принятое действие ActionQueue уже применил к снимку по ответу сервера;
+            // CANCELLED — заезд и выезд погасили друг друга, на сервере ничего не менялось
+        });
+    }
+
+    // === ЗАЕЗД ===
+    private void onEntered(int id) {
+        AppPrefs.edit(this)
+                .setCurrentPlaceId(id)
+                .setCurrentPlaceStart(System.currentTimeMillis())
+                .commit();
+
+        if (AppPrefs.isNotificationsEnabled(this)) {
+            Toast.makeText(this,
+                    "Место № " + id + " занято",
+                    Toast.LENGTH_SHORT).show();
+        }
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    // === ВЫЕЗД ===
+    private void onExited(int id) {
+        long start = AppPrefs.getCurrentPlaceStart(this);
+        long now = System.currentTimeMillis();
+
+        long minutes = TariffEngine.minutes(start, now);
+        long billedMinutes = Billing.engine().billedMinutes(TariffEngine.DEFAULT_ZONE, start, now);
+        int cost = Billing.engine().cost(TariffEngine.DEFAULT_ZONE, start, now);
+
+        int balanceBefore = AppPrefs.getBalance(this);
+        int balanceAfter = Math.max(0, balanceBefore - cost);
+
+        // списание и сброс занятости — одной записью, до истории:
+        // если процесс умрёт между ними, повторного списания не будет
+        AppPrefs.edit(this)
+                .setBalance(balanceAfter)
+                .setCurrentPlaceId(-1)
+                .setCurrentPlaceStart(0L)
+                .commit();
+
+        TripHistory.add(this, new TripHistory.Trip(
+                id, minutes, billedMinutes, cost, balanceAfter, now));
+
+        if (AppPrefs.isNotificationsEnabled(this)) {
+            Toast.makeText(this,
+                    "Списано " + cost + " ₽. Остаток: " + balanceAfter + " ₽",
+                    Toast.LENGTH_LONG).show();
         }
     }
 }
@@ -0,0 +1,114 @@
+package com.example.smartparkingclient;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Локальная база приложения (SQLite).
+ */
+public class ParkingDb extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "parking.db";
+    private static final int DB_VERSION = 4;
+
+    // ----------- ПОЕЗДКИ -----------
+    public static final String TABLE_TRIPS = "trips";
+    public static final String COL_ID = "_id";
+    public static final String COL_PLACE_ID = "place_id";
+    public static final String COL_MINUTES = "minutes";
+    public static final String COL_BILLED_MINUTES = "billed_minutes"; // по тарифу: шаги × длина шага
+    public static final String COL_COST = "cost";
+    public static final String COL_BALANCE_AFTER = "balance_after";
+    public static final String COL_FINISHED_AT = "finished_at";   // мс, 0 — неизвестно
+
+    // ----------- ОЧЕРЕДЬ ДЕЙСТВИЙ -----------
+    // заезды/выезды, ещё не подтверждённые сервером (см. ActionQueue)
+    public static final String TABLE_PENDING = "pending_actions";
+    public static final String COL_ACTION_KEY = "action_key";     // ключ идемпотентности
+    public static final String COL_STATUS = "status";             // "free" / "busy"
+    public static final String COL_CREATED_AT = "created_at";     // мс
+    public static final String COL_ATTEMPTED = "attempted";       // 1 — уже уходило на сервер
+
+    private static volatile ParkingDb instance;
+
+    private final Context appContext;
+
+    private ParkingDb(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+        appContext = context.getApplicationContext();
+    }
+
+    public static ParkingDb get(Context context) {
+        ParkingDb local = instance;
+        if (local == null) {
+            synchronized (ParkingDb.class) {
+                local = instance;
+                if (local == null) {
+                    local = new ParkingDb(context);
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        createTrips(db);
+        createPendingActions(db);
+
+        // история из старой строки в SharedPreferences переезжает один раз
+        TripHistory.migrateLegacy(appContext, db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createPendingActions(db);
+        } else if (oldVersion < 3) {
+            // v2: одно действие на место (UNIQUE(place_id)), без attempted.
+            // Уходили ли строки на сервер — неизвестно, считаем, что уходили
+            db.execSQL("ALTER TABLE " + TABLE_PENDING + " RENAME TO pending_actions_v2");
+            createPendingActions(db);
+            String columns = COL_ACTION_KEY + ", " + COL_PLACE_ID + ", " +
+                    COL_STATUS + ", " + COL_CREATED_AT;
+            db.execSQL("INSERT INTO " + TABLE_PENDING + " (" + columns + ", " + COL_ATTEMPTED + ")" +
+                    " SELECT " + columns + ", 1 FROM pending_actions_v2 ORDER BY " + COL_ID);
+            db.execSQL("DROP TABLE pending_actions_v2");
+        }
+        if (oldVersion < 4) {
+            // v3: вместо оплаченных минут — часы с почасовым округлением.
+            // Тогда тариф был почасовым, так что часы × 60 — ровно оплаченное время
+            db.execSQL("ALTER TABLE " + TABLE_TRIPS + " RENAME TO trips_v3");
+            createTrips(db);
+            String columns = COL_ID + ", " + COL_PLACE_ID + ", " + COL_MINUTES + ", " +
+                    COL_COST + ", " + COL_BALANCE_AFTER + ", " + COL_FINISHED_AT;
+            db.execSQL("INSERT INTO " + TABLE_TRIPS + " (" + columns + ", " + COL_BILLED_MINUTES + ")" +
+                    " SELECT " + columns + ", hours * 60 FROM trips_v3");
+            db.execSQL("DROP TABLE trips_v3");
+        }
+    }
+
+    private static void createTrips(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_TRIPS + " (" +
+                COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COL_PLACE_ID + " INTEGER NOT NULL, " +
+                COL_MINUTES + " INTEGER NOT NULL, " +
+                COL_BILLED_MINUTES + " INTEGER NOT NULL, " +
+                COL_COST + " INTEGER NOT NULL, " +
+                COL_BALANCE_AFTER + " INTEGER NOT NULL, " +
+                COL_FINISHED_AT + " INTEGER NOT NULL)");
+    }
+
+    // Действия по месту идут по порядку (_id): уже отправленное и следующее за ним
+    private static void createPendingActions(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_PENDING + " (" +
+                COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COL_ACTION_KEY + " TEXT NOT NULL UNIQUE, " +
+                COL_PLACE_ID + " INTEGER NOT NULL, " +
+                COL_STATUS + " TEXT NOT NULL, " +
+                COL_CREATED_AT + " INTEGER NOT NULL, " +
+                COL_ATTEMPTED + " INTEGER NOT NULL DEFAULT 0)");
+    }
+}
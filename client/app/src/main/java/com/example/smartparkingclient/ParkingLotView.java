@@ -0,0 +1,301 @@
+package com.example.smartparkingclient;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import com.example.smartparkingclient.core.ParkingSnapshot;
+
+/**
+ * Схема парковки, нарисованная на одном Canvas.
+ *
+ * Рисует места прямо из ParkingSnapshot (массивы id и статусов),
+ * на экран попадают только ряды из видимой области. Поддерживает прокрутку, масштаб
+ * и нажатие на место. Раскладка как у прежних колонок: чётные места слева,
+ * нечётные справа, дорога посередине (1 : 1.3 : 1).
+ * Когда до конца загруженных мест остаётся меньше NEAR_END_ROWS рядов,
+ * сообщает об этом — чтобы догрузить следующую страницу.
+ */
+public class ParkingLotView extends View {
+
+    public interface OnPlaceClickListener {
+        void onPlaceClick(int id, byte status);
+    }
+
+    public interface OnNearEndListener {
+        void onNearEnd();
+    }
+
+    private static final float ROAD_FRACTION = 1.3f / 3.3f;
+    private static final float CELL_HEIGHT_DP = 48;
+    private static final float MIN_SCALE = 0.1f;
+    private static final float MAX_SCALE = 3f;
+    // мельче этого подписи не читаются — рисуем только цвет
+    private static final float MIN_TEXT_CELL_PX = 28;
+    // за сколько рядов до конца просить следующую страницу
+    private static final int NEAR_END_ROWS = 20;
+
+    private ParkingSnapshot snapshot = ParkingSnapshot.empty();
+    private boolean stale;      // показан снимок из кэша, свежих данных ещё нет
+
+    private final float cellHeight;
+    private float scale = 1f;
+    private float offsetY;      // прокрутка по вертикали в пикселях экрана
+    private float offsetX;      // сдвиг по горизонтали при увеличении
+
+    private final Paint freePaint = new Paint();
+    private final Paint busyPaint = new Paint();
+    private final Paint roadPaint = new Paint();
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final StringBuilder label = new StringBuilder();
+
+    private final GestureDetector gestures;
+    private final ScaleGestureDetector scaleGestures;
+    private OnPlaceClickListener clickListener;
+    private OnNearEndListener nearEndListener;
+
+    public ParkingLotView(Context context) {
+        this(context, null);
+    }
+
+    public ParkingLotView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        float density = getResources().getDisplayMetrics().density;
+        cellHeight = CELL_HEIGHT_DP * density;
+
+        freePaint.setColor(0xFFA8E6CF); // зелёный
+        busyPaint.setColor(0xFFFF8C8C); // красный
+        roadPaint.setColor(0xFFEEEEEE);
+        textPaint.setColor(0xFF222222);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 16,
+                getResources().getDisplayMetrics()));
+
+        gestures = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, MotionEvent e2, float dx, float dy) {
+                offsetX += dx;
+                offsetY += dy;
+                clampOffsets();
+                invalidate();
+                if (dy > 0) checkNearEnd(); // листают вниз, к концу
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapUp(MotionEvent e) {
+                int index = hitTest(e.getX(), e.getY());
+                if (index >= 0 && clickListener != null) {
+                    clickListener.onPlaceClick(snapshot.idAt(index), snapshot.statusAt(index));
+                }
+                return true;
+            }
+        });
+
+        scaleGestures = new ScaleGestureDetector(context,
+                new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+                    @Override
+                    public boolean onScale(ScaleGestureDetector detector) {
+                        float newScale = Math.max(MIN_SCALE,
+                                Math.min(MAX_SCALE, scale * detector.getScaleFactor()));
+                        float factor = newScale / scale;
+
+                        // масштабируем относительно точки между пальцами
+                        offsetX = (offsetX + detector.getFocusX()) * factor - detector.getFocusX();
+                        offsetY = (offsetY + detector.getFocusY()) * factor - detector.getFocusY();
+                        scale = newScale;
+
+                        clampOffsets();
+                        invalidate();
+                        return true;
+                    }
+                });
+    }
+
+    public void setOnPlaceClickListener(OnPlaceClickListener listener) {
+        clickListener = listener;
+    }
+
+    public void setOnNearEndListener(OnNearEndListener listener) {
+        nearEndListener = listener;
+    }
+
+    // ---------- ДАННЫЕ ----------
+
+    // Новый снимок: схема перерисовывается целиком
+    public void setSnapshot(ParkingSnapshot snapshot) {
+        this.snapshot = snapshot;
+        clampOffsets();
+        invalidate();
+        checkUnderfilled();
+    }
+
+    // Устаревшие данные рисуются бледнее
+    public void setStale(boolean stale) {
+        if (this.stale == stale) return;
+        this.stale = stale;
+        invalidate();
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    // Место index в текущем снимке изменилось: перерисовываем, только если оно на экране
+    public void onSpotChanged(int index) {
+        if (index < 0 || index >= snapshot.size()) return;
+
+        float top = rowTop(index / 2);
+        float bottom = top + cellHeight * scale;
+        if (bottom < 0 || top > getHeight()) return;
+
+        float left = cellLeft(index % 2);
+        invalidate((int) left, (int) top,
+                (int) Math.ceil(left + cellWidth()), (int) Math.ceil(bottom));
+    }
+
+    // ---------- ГЕОМЕТРИЯ ----------
+    private float contentWidth() {
+        return getWidth() * scale;
+    }
+
+    private float cellWidth() {
+        return contentWidth() * (1 - ROAD_FRACTION) / 2;
+    }
+
+    private float cellLeft(int column) {
+        float left = -offsetX;
+        return column == 0 ? left : left + contentWidth() - cellWidth();
+    }
+
+    private float rowTop(int row) {
+        return row * cellHeight * scale - offsetY;
+    }
+
+    private int rowCount() {
+        return (snapshot.size() + 1) / 2;
+    }
+
+    private void clampOffsets() {
+        if (contentWidth() <= getWidth()) {
+            offsetX = (contentWidth() - getWidth()) / 2; // узкую схему держим по центру
+        } else {
+            offsetX = Math.max(0, Math.min(offsetX, contentWidth() - getWidth()));
+        }
+        float maxY = Math.max(0, rowCount() * cellHeight * scale - getHeight());
+        offsetY = Math.max(0, Math.min(offsetY, maxY));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        clampOffsets();
+        checkUnderfilled();
+    }
+
+    // Пользователь долистал почти до конца загруженных мест. Только по прокрутке:
+    // при сильном уменьшении конец виден всегда, и страницы грузились бы каждый кадр
+    private void checkNearEnd() {
+        if (nearEndListener == null || snapshot.size() == 0 || getHeight() == 0) return;
+
+        int lastVisibleRow = (int) ((offsetY + getHeight()) / (cellHeight * scale));
+        if (lastVisibleRow >= rowCount() - NEAR_END_ROWS) {
+            nearEndListener.onNearEnd();
+        }
+    }
+
+    // Загруженные места не заполняют экран даже без уменьшения — листать нечего
+    private void checkUnderfilled() {
+        if (nearEndListener == null || snapshot.size() == 0 || getHeight() == 0) return;
+        if (rowCount() * cellHeight < getHeight()) nearEndListener.onNearEnd();
+    }
+
+    private int hitTest(float x, float y) {
+        float rowHeight = cellHeight * scale;
+        int row = (int) ((y + offsetY) / rowHeight);
+        if (row < 0) return -1;
+
+        int column;
+        if (x >= cellLeft(0) && x < cellLeft(0) + cellWidth()) {
+            column = 0;
+        } else if (x >= cellLeft(1) && x < cellLeft(1) + cellWidth()) {
+            column = 1;
+        } else {
+            return -1; // дорога
+        }
+
+        int index = row * 2 + column;
+        return index < snapshot.size() ? index : -1;
+    }
+
+    // ---------- ОТРИСОВКА ----------
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        float width = cellWidth();
+        float rowHeight = cellHeight * scale;
+        float roadLeft = cellLeft(0) + width;
+        canvas.drawRect(roadLeft, 0, cellLeft(1), getHeight(), roadPaint);
+
+        if (snapshot.size() == 0) return;
+
+        // рисуем только видимые ряды
+        int firstRow = Math.max(0, (int) (offsetY / rowHeight));
+        int lastRow = Math.min(rowCount() - 1, (int) ((offsetY + getHeight()) / rowHeight));
+
+        boolean drawText = rowHeight >= MIN_TEXT_CELL_PX;
+        float textScale = Math.min(1f, scale);
+        float baseTextSize = textPaint.getTextSize();
+        textPaint.setTextSize(baseTextSize * textScale);
+        float padding = 16 * textScale;
+        float gap = rowHeight > 4 ? 1 : 0;
+        int alpha = stale ? 0x80 : 0xFF;
+        freePaint.setAlpha(alpha);
+        busyPaint.setAlpha(alpha);
+        textPaint.setAlpha(alpha);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            float top = rowTop(row);
+            for (int column = 0; column < 2; column++) {
+                int index = row * 2 + column;
+                if (index >= snapshot.size()) break;
+
+                float left = cellLeft(column);
+                boolean free = snapshot.isFree(index);
+                canvas.drawRect(left, top, left + width, top + rowHeight - gap,
+                        free ? freePaint : busyPaint);
+
+                if (drawText) {
+                    label.setLength(0);
+                    label.append("Место ").append(snapshot.idAt(index)).append(": ")
+                            .append(free ? "Свободно" : "Занято");
+                    float baseline = top + (rowHeight - textPaint.ascent() - textPaint.descent()) / 2;
+                    canvas.drawText(label, 0, label.length(), left + padding, baseline, textPaint);
+                }
+            }
+        }
+
+        textPaint.setTextSize(baseTextSize);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleGestures.onTouchEvent(event);
+        if (!scaleGestures.isInProgress()) {
+            handled = gestures.onTouchEvent(event) || handled;
+        }
+        return handled || super.onTouchEvent(event);
+    }
+}
@@ -0,0 +1,669 @@
+package com.example.smartparkingclient;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.smartparkingclient.core.Levels;
+import com.example.smartparkingclient.core.ParkingSnapshot;
+import com.example.smartparkingclient.core.PlacesParser;
+import com.example.smartparkingclient.core.PlacesPayload;
+import com.example.smartparkingclient.core.PollPolicy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Состояние парковки на весь процесс.
+ *
+ * Держит текущий ParkingSnapshot и единственный цикл обновления: /places
+ * (полный список, потом дельты) плюс live-события /events. Экраны подписываются
+ * и получают изменения; свободные/занятые/загруженность берутся из счётчиков
+ * снимка, отдельный запрос /stats не нужен. Без live-соединения включается
+ * опрос (PollScheduler). Пока подписчиков нет — сеть не трогаем.
+ *
+ * Большая парковка делится на уровни (/levels). В памяти — только открытый
+ * уровень, и то лишь загруженные страницы по PAGE_SIZE мест: следующая
+ * догружается, когда схему докрутили до конца (loadMore). Дельты запрашиваются
+ * по тем же страницам, так что размер ответа не зависит от размера парковки.
+ * Недавний уровень держим ещё один, остальные выбрасываем. Итоги по всей
+ * парковке — из счётчиков /levels.
+ * Опрос дельты и /levels идёт с If-None-Match: пока на сервере ничего не
+ * менялось, он отвечает 304 без тела — разбирать и перерисовывать нечего.
+ * Все методы и колбэки — в главном потоке.
+ */
+public final class ParkingRepository {
+
+    public interface Listener {
+        // снимок заменён целиком (кэш, полный список)
+        default void onSnapshot(ParkingSnapshot snapshot) {}
+
+        // в текущем снимке изменились места с этими индексами
+        default void onSpotsChanged(int[] indexes) {}
+
+        // stale — показан снимок из кэша, сохранённый в savedAt; false — данные с сервера
+        default void onStaleChanged(boolean stale, long savedAt) {}
+
+        // загрузка /places не удалась
+        default void onLoadFailed(String message) {}
+
+        // live-соединение потеряно, идёт переподключение
+        default void onConnectionLost() {}
+
+        // сервер снова отвечает: /places загружен (в том числе 304 и пустая дельта)
+        // или восстановлено live-соединение
+        default void onConnectionRestored() {}
+
+        // загружены или изменились уровни и их счётчики
+        default void onLevels(Levels levels) {}
+    }
+
+    public static final int PAGE_SIZE = 200;
+
+    // открытый уровень плюс один недавний
+    private static final int LEVELS_IN_MEMORY = 2;
+    // события с других уровней идут пачками — счётчики перезапрашиваем не чаще
+    private static final long LEVELS_RELOAD_DELAY_MS = 1000;
+
+    // ответ 304: с прошлого такого же запроса ничего не изменилось
+    private static final PlacesPayload NOT_MODIFIED = new PlacesPayload();
+
+    // Загруженные страницы уровня, который сейчас не открыт
+    private static final class LevelPages {
+        final ParkingSnapshot snapshot;
+        final int nextOffset;
+
+        LevelPages(ParkingSnapshot snapshot, int nextOffset) {
+            this.snapshot = snapshot;
+            this.nextOffset = nextOffset;
+        }
+    }
+
+    private static volatile ParkingRepository instance;
+
+    private final Context appContext;
+    private final ApiClient api;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private ParkingSnapshot snapshot;   // страницы открытого уровня, null — ещё не загружен
+    private boolean stale = true;       // данные ещё не подтверждены сервером
+    private long staleSavedAt;
+
+    private int level;                  // открытый уровень (0 у сервера без уровней)
+    private int nextOffset = -1;        // следующая страница уровня, -1 — загружен целиком
+    private Levels levels;              // null — /levels ещё не загружен
+    private final LinkedHashMap<Integer, LevelPages> recentLevels =
+            new LinkedHashMap<>(4, 0.75f, true);
+
+    private Call inFlight;              // одновременно идёт не больше одного /places
+    private boolean reloadQueued;
+    private Call pageCall;              // догрузка следующей страницы
+    private boolean pageQueued;
+    private Call levelsCall;
+
+    // ETag последнего ответа /places и его адрес; /levels — свой ETag
+    private HttpUrl placesEtagUrl;
+    private String placesEtag;
+    private String levelsEtag;
+
+    // Пока live-соединения нет, изменения забираем опросом /places?since
+    private final PollScheduler poller = new PollScheduler(
+            new PollPolicy(5_000, 60_000, 120_000, new Random()), this::poll);
+    private final List<IntConsumer> pollCallbacks = new ArrayList<>();
+
+    private ParkingRepository(Context context) {
+        appContext = context.getApplicationContext();
+        api = ApiClient.get(context);
+    }
+
+    public static ParkingRepository get(Context context) {
+        ParkingRepository local = instance;
+        if (local == null) {
+            synchronized (ParkingRepository.class) {
+                local = instance;
+                if (local == null) {
+                    local = new ParkingRepository(context);
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    // ---------- ПОДПИСКА ----------
+
+    // Новый подписчик сразу получает текущее состояние
+    public void addListener(Listener listener) {
+        boolean first = listeners.isEmpty();
+        listeners.add(listener);
+
+        if (snapshot == null && first) {
+            restoreFromCache();
+        }
+        if (snapshot != null) {
+            listener.onSnapshot(snapshot);
+            listener.onStaleChanged(stale, staleSavedAt);
+        }
+
+        if (levels != null) {
+            listener.onLevels(levels);
+        }
+
+        if (first) {
+            LiveUpdates.get(appContext).addListener(liveListener);
+            refresh();
+            loadLevels();
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+        if (!listeners.isEmpty()) return;
+
+        LiveUpdates.get(appContext).removeListener(liveListener);
+        poller.stop();
+        mainHandler.removeCallbacks(levelsReloadTask);
+        // live-события меняли снимок без записи на диск
+        if (snapshot != null && !stale) {
+            SnapshotCache.save(appContext, snapshot, level, nextOffset);
+        }
+    }
+
+    // ---------- ЧТЕНИЕ ----------
+    public ParkingSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public int level() {
+        return level;
+    }
+
+    // null, пока /levels не загружен
+    public Levels levels() {
+        return levels;
+    }
+
+    // ---------- ИЗМЕНЕНИЯ ----------
+
+    // Сменился адрес сервера (настройки). Снимок, версия, уровни и ETag —
+    // от прежнего сервера: ?since= со старой версией дал бы новому серверу
+    // чужую дельту или ложный 304. Всё сбрасываем и грузим заново
+    public void onServerChanged() {
+        if (inFlight != null) inFlight.cancel();
+        inFlight = null;
+        reloadQueued = false;
+        cancelPage();
+        if (levelsCall != null) levelsCall.cancel();
+        levelsCall = null;
+        mainHandler.removeCallbacks(levelsReloadTask);
+
+        snapshot = null;
+        level = 0;
+        nextOffset = -1;
+        levels = null;
+        recentLevels.clear();
+        placesEtagUrl = null;
+        placesEtag = null;
+        levelsEtag = null;
+
+        if (listeners.isEmpty()) return; // загрузится при первом подписчике
+        for (Listener l : listeners) l.onSnapshot(ParkingSnapshot.empty());
+        LiveUpdates.get(appContext).reconnect();
+        loadPlaces();
+        loadLevels();
+    }
+
+    // Догрузить изменения с сервера (дельта от версии снимка)
+    public void refresh() {
+        if (inFlight != null) {
+            reloadQueued = true; // после текущего ответа запросим ещё раз
+            return;
+        }
+        loadPlaces();
+    }
+
+    // Сервер отклонил своё действие: снимок и счётчики заново целиком,
+    // без дельты и If-None-Match. Локальное изменение версию снимка не двигало,
+    // так что дельта от неё пришла бы пустой или 304 и место осталось бы неверным
+    public void reload() {
+        placesEtagUrl = null;
+        placesEtag = null;
+        levelsEtag = null;
+        reloadQueued = false;
+        reloadAll();
+
+        if (levelsCall != null) levelsCall.cancel();
+        levelsCall = null;
+        mainHandler.removeCallbacks(levelsReloadTask);
+        loadLevels();
+    }
+
+    // Локальное изменение до подтверждения сервером (своё действие).
+    // Счётчики уровня не трогаем: их обновит ответ сервера
+    public void applyLocal(int id, byte status) {
+        if (snapshot == null) return;
+        int index = snapshot.indexOf(id);
+        if (index >= 0 && snapshot.setStatus(index, status)) {
+            int[] changed = {index};
+            for (Listener l : listeners) l.onSpotsChanged(changed);
+        }
+    }
+
+    /**
+     * Ответ сервера на своё действие (/update/batch): места, которых оно коснулось,
+     * и версии до и после. Если снимок между ними — ответ и есть вся дельта,
+     * повторный запрос /places не нужен.
+     */
+    public void applyConfirmed(PlacesPayload result) {
+        if (snapshot == null) return;
+        applyVersioned(result);
+        // место уже стояло в снимке локально — статус не перевернулся,
+        // и countChanges его не учёл. Счётчики берём с сервера
+        if (result.count > 0) scheduleLevelsReload();
+    }
+
+    // Места, изменённые между result.baseVersion и result.version (ответ на действие, пачка /ingest)
+    private void applyVersioned(PlacesPayload result) {
+        long version = snapshot.version();
+        if (result.baseVersion < 0 || version < result.baseVersion || version > result.version) {
+            // между снимком и ответом были чужие изменения (или снимок уже новее)
+            refresh();
+            return;
+        }
+
+        int[] changed = new int[result.count];
+        int changedCount = 0;
+        for (int i = 0; i < result.count; i++) {
+            int index = snapshot.indexOf(result.ids[i]);
+            if (index < 0) {
+                scheduleLevelsReload(); // место не на экране — только счётчики
+            } else if (snapshot.setStatus(index, result.statuses[i])) {
+                changed[changedCount++] = index;
+            }
+        }
+        snapshot.setVersion(result.version);
+
+        if (changedCount > 0) {
+            changed = Arrays.copyOf(changed, changedCount);
+            for (Listener l : listeners) l.onSpotsChanged(changed);
+            countChanges(changed);
+        }
+    }
+
+    // Открыть другой уровень: недавний показывается сразу, иначе грузится первая страница
+    public void selectLevel(int newLevel) {
+        if (newLevel == level) return;
+
+        if (snapshot != null) {
+            recentLevels.put(level, new LevelPages(snapshot, nextOffset));
+            Iterator<Integer> eldest = recentLevels.keySet().iterator();
+            while (recentLevels.size() > LEVELS_IN_MEMORY - 1) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        LevelPages pages = recentLevels.remove(newLevel);
+        level = newLevel;
+        snapshot = pages != null ? pages.snapshot : null;
+        nextOffset = pages != null ? pages.nextOffset : -1;
+        cancelPage();
+        for (Listener l : listeners) {
+            l.onSnapshot(snapshot != null ? snapshot : ParkingSnapshot.empty());
+        }
+
+        // ответ по прежнему уровню больше не нужен
+        if (inFlight != null) inFlight.cancel();
+        inFlight = null;
+        loadPlaces();
+    }
+
+    // Следующая страница открытого уровня (схему докрутили до конца)
+    public void loadMore() {
+        if (snapshot == null || nextOffset < 0 || pageCall != null) return;
+        if (inFlight != null) {
+            pageQueued = true; // сначала дождёмся дельты по загруженным страницам
+            return;
+        }
+
+        String url = api.url("/places") + "?level=" + level
+                + "&offset=" + nextOffset + "&limit=" + PAGE_SIZE;
+        pageCall = fetchPlaces(url, null, this::finishPage);
+    }
+
+    // Один опрос для PollScheduler: результат — после ответа на /places
+    private void poll(IntConsumer done) {
+        pollCallbacks.add(done);
+        refresh();
+        // без live-событий счётчики других уровней сами не обновятся
+        if (levels != null && levels.size() > 1) loadLevels();
+    }
+
+    private void restoreFromCache() {
+        SnapshotCache.Entry cached = SnapshotCache.load(appContext);
+        if (cached == null) return;
+        snapshot = cached.snapshot;
+        level = Math.max(0, cached.level);
+        nextOffset = cached.nextOffset;
+        stale = true;
+        staleSavedAt = cached.savedAt;
+    }
+
+    // ---------- LIVE-ОБНОВЛЕНИЯ ----------
+    private final LiveUpdates.Listener liveListener = new LiveUpdates.Listener() {
+        @Override
+        public void onConnected() {
+            poller.stop();
+            for (Listener l : listeners) l.onConnectionRestored();
+            // за время без соединения могли пропустить изменения — догружаем дельту
+            if (snapshot != null) refresh();
+        }
+
+        @Override
+        public void onDisconnected() {
+            poller.start();
+            for (Listener l : listeners) l.onConnectionLost();
+        }
+
+        @Override
+        public void onPlaceChanged(int id, byte status, int placeLevel, long version) {
+            if (snapshot == null || version <= snapshot.version()) return;
+
+            if (version == snapshot.version() + 1) {
+                applyPlace(id, status, placeLevel);
+                if (snapshot != null) snapshot.setVersion(version);
+            } else {
+                refresh(); // пропуск версий — берём дельту с сервера
+            }
+        }
+
+        @Override
+        public void onPlacesChanged(PlacesPayload places) {
+            if (snapshot == null || places.version <= snapshot.version()) return;
+            applyVersioned(places); // при пропуске версий сам запросит дельту
+        }
+    };
+
+    // ---------- ЗАГРУЗКА ----------
+    private interface PlacesResult {
+        // places — NOT_MODIFIED на 304; etag — из ответа, может быть null
+        void onResult(Call call, PlacesPayload places, String etag, String error);
+    }
+
+    // Первый запрос — первая страница уровня, дальше только изменения
+    // после версии снимка и только по уже загруженным страницам
+    private void loadPlaces() {
+        String url = api.url("/places") + "?level=" + level;
+        // limit — размер снимка; пустому снимку дельта не нужна (limit=0 сервер не примет)
+        if (snapshot != null && snapshot.version() >= 0 && snapshot.size() > 0) {
+            url += "&since=" + snapshot.version() + "&offset=0&limit=" + snapshot.size();
+        } else {
+            url += "&offset=0&limit=" + PAGE_SIZE;
+        }
+        // повторяем ровно тот же запрос дельты — сервер может ответить 304.
+        // Без снимка 304 применить не к чему, поэтому только с ним
+        String etag = null;
+        if (snapshot != null && placesEtag != null && HttpUrl.get(url).equals(placesEtagUrl)) {
+            etag = placesEtag;
+        }
+        inFlight = fetchPlaces(url, etag, this::finishLoad);
+    }
+
+    // Ответ приходит в главный поток
+    private Call fetchPlaces(String url, String ifNoneMatch, PlacesResult result) {
+        Request.Builder builder = new Request.Builder().url(url);
+        if (ifNoneMatch != null) builder.header("If-None-Match", ifNoneMatch);
+        Request request = builder.build();
+
+        Call call = api.http().newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                e.printStackTrace();
+                mainHandler.post(() -> result.onResult(call, null, null, "Ошибка соединения с сервером"));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                // разбираем прямо из потока ответа, без строки и JSON-дерева
+                try (ResponseBody body = response.body()) {
+                    String etag = response.header("ETag");
+                    if (response.code() == 304) {
+                        mainHandler.post(() -> result.onResult(call, NOT_MODIFIED, etag, null));
+                        return;
+                    }
+                    if (!response.isSuccessful() || body == null) {
+                        mainHandler.post(() -> result.onResult(call, null, null, "Ошибка ответа сервера"));
+                        return;
+                    }
+                    PlacesPayload places = PlacesParser.parse(body.byteStream());
+                    mainHandler.post(() -> result.onResult(call, places, etag, null));
+
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    mainHandler.post(() -> result.onResult(call, null, null, "Ошибка ответа сервера"));
+                }
+            }
+        });
+        return call;
+    }
+
+    private void finishLoad(Call call, PlacesPayload places, String etag, String error) {
+        if (call != inFlight) return;
+        inFlight = null;
+
+        int outcome;
+        if (places == null) {
+            outcome = PollPolicy.ERROR;
+            for (Listener l : listeners) l.onLoadFailed(error);
+        } else if (places == NOT_MODIFIED) {
+            outcome = PollPolicy.UNCHANGED;
+            for (Listener l : listeners) l.onConnectionRestored();
+        } else {
+            placesEtagUrl = call.request().url();
+            placesEtag = etag;
+            outcome = applyPlaces(places) ? PollPolicy.CHANGED : PollPolicy.UNCHANGED;
+            for (Listener l : listeners) l.onConnectionRestored();
+        }
+
+        if (!pollCallbacks.isEmpty()) {
+            List<IntConsumer> callbacks = new ArrayList<>(pollCallbacks);
+            pollCallbacks.clear();
+            for (IntConsumer done : callbacks) done.accept(outcome);
+        }
+
+        if (reloadQueued && inFlight == null && !listeners.isEmpty()) {
+            reloadQueued = false;
+            loadPlaces();
+        }
+        if (pageQueued && inFlight == null) {
+            pageQueued = false;
+            loadMore();
+        }
+    }
+
+    private void finishPage(Call call, PlacesPayload page, String etag, String error) {
+        if (call != pageCall) return;
+        pageCall = null;
+
+        if (page == null) {
+            for (Listener l : listeners) l.onLoadFailed(error);
+            return;
+        }
+        if (snapshot == null || (page.level >= 0 && page.level != level)) return;
+
+        snapshot = snapshot.append(page);
+        nextOffset = page.nextOffset;
+        for (Listener l : listeners) l.onSnapshot(snapshot);
+    }
+
+    private void cancelPage() {
+        if (pageCall != null) pageCall.cancel();
+        pageCall = null;
+        pageQueued = false;
+    }
+
+    // Полный ответ заменяет снимок целиком, дельта меняет статусы отдельных мест.
+    // true — что-то изменилось
+    private boolean applyPlaces(PlacesPayload places) {
+        // ответ по уровню, который уже закрыли
+        if (places.level >= 0 && places.level != level) return false;
+
+        boolean changedAny;
+        if (places.full) {
+            changedAny = snapshot == null || snapshot.version() != places.version;
+            snapshot = ParkingSnapshot.of(places);
+            nextOffset = places.nextOffset;
+            cancelPage(); // страницы считаются заново от нового снимка
+            for (Listener l : listeners) l.onSnapshot(snapshot);
+            if (changedAny) loadLevels();
+
+        } else {
+            // ответ мог опоздать: live-событие уже принесло более новую версию
+            // (дельта той же версии нужна — она подтверждает снимок из кэша)
+            if (snapshot == null || places.version < snapshot.version()) return false;
+
+            int[] changed = snapshot.applyDelta(places);
+            if (changed == null) {
+                reloadAll();
+                return true;
+            }
+            changedAny = changed.length > 0;
+            if (changedAny) {
+                for (Listener l : listeners) l.onSpotsChanged(changed);
+                countChanges(changed);
+            }
+        }
+
+        if (stale) {
+            stale = false;
+            changedAny = true;
+            for (Listener l : listeners) l.onStaleChanged(false, 0);
+        }
+        if (changedAny) {
+            SnapshotCache.save(appContext, snapshot, level, nextOffset);
+        }
+        return changedAny;
+    }
+
+    private void applyPlace(int id, byte status, int placeLevel) {
+        int index = snapshot.indexOf(id);
+        if (index < 0) {
+            if (notLoaded(id, placeLevel)) {
+                scheduleLevelsReload(); // схема не меняется, только счётчики
+            } else {
+                reloadAll();
+            }
+            return;
+        }
+        if (snapshot.setStatus(index, status)) {
+            int[] changed = {index};
+            for (Listener l : listeners) l.onSpotsChanged(changed);
+            countChanges(changed);
+        }
+    }
+
+    // Место есть на парковке, но не в памяти: другой уровень или страница ещё не загружена
+    private boolean notLoaded(int id, int placeLevel) {
+        if (placeLevel < 0 && levels != null) placeLevel = levels.levelOf(id);
+        return placeLevel >= 0 && (placeLevel != level || nextOffset >= 0);
+    }
+
+    // в снимке нет нужного места — перезагружаем уровень заново
+    private void reloadAll() {
+        snapshot = null;
+        nextOffset = -1;
+        cancelPage();
+        if (inFlight != null) inFlight.cancel();
+        inFlight = null;
+        loadPlaces();
+    }
+
+    // ---------- УРОВНИ ----------
+    private void loadLevels() {
+        if (levelsCall != null) return;
+
+        Request.Builder builder = new Request.Builder().url(api.url("/levels"));
+        // 304 — счётчики не менялись, оставляем загруженные
+        if (levels != null && levelsEtag != null) builder.header("If-None-Match", levelsEtag);
+        Request request = builder.build();
+
+        Call call = api.http().newCall(request);
+        levelsCall = call;
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                mainHandler.post(() -> finishLevels(call, null, null));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                Levels result = null;
+                String etag = response.header("ETag");
+                try (ResponseBody body = response.body()) {
+                    // старый сервер без уровней отвечает 404 — живём без счётчиков уровней
+                    if (response.isSuccessful() && body != null) {
+                        result = Levels.parse(body.byteStream());
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                Levels loaded = result;
+                mainHandler.post(() -> finishLevels(call, loaded, etag));
+            }
+        });
+    }
+
+    private void finishLevels(Call call, Levels loaded, String etag) {
+        if (call != levelsCall) return;
+        levelsCall = null;
+        if (loaded == null) return; // ошибка или 304
+
+        levels = loaded;
+        levelsEtag = etag;
+        for (Listener l : listeners) l.onLevels(levels);
+
+        // уровней стало меньше, чем номер открытого
+        if (level >= levels.size() && levels.size() > 0) selectLevel(0);
+    }
+
+    private final Runnable levelsReloadTask = this::loadLevels;
+
+    private void scheduleLevelsReload() {
+        if (levels == null) return;
+        mainHandler.removeCallbacks(levelsReloadTask);
+        mainHandler.postDelayed(levelsReloadTask, LEVELS_RELOAD_DELAY_MS);
+    }
+
+    // Счётчики открытого уровня ведём сами: changed — места, у которых статус перевернулся
+    private void countChanges(int[] changed) {
+        if (levels == null || level >= levels.size()) return;
+
+        Levels.Level counts = levels.get(level);
+        for (int index : changed) {
+            int delta = snapshot.isFree(index) ? 1 : -1;
+            counts.free += delta;
+            counts.busy -= delta;
+        }
+        for (Listener l : listeners) l.onLevels(levels);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.smartparkingclient;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.smartparkingclient.core.PollPolicy;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Опрос сервера по таймеру, пока нет live-соединения.
+ *
+ * Следующий опрос планируется только после ответа на предыдущий, поэтому
+ * запросы не накладываются. Паузу выбирает PollPolicy (растёт, пока ничего
+ * не меняется, и при ошибках; с разбросом). Работает в главном потоке.
+ */
+final class PollScheduler {
+
+    interface Poll {
+        // выполнить один опрос и вызвать done с PollPolicy.CHANGED / UNCHANGED / ERROR
+        void run(IntConsumer done);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final PollPolicy policy;
+    private final Poll poll;
+
+    private boolean running;
+    private boolean inFlight;
+    private int generation;     // ответы опросов до stop() не планируют новых
+    private boolean tickSkipped; // тик пришёл, пока летел прежний опрос — его ответ планирует следующий
+
+    PollScheduler(PollPolicy policy, Poll poll) {
+        this.policy = policy;
+        this.poll = poll;
+    }
+
+    void start() {
+        if (running) return;
+        running = true;
+        generation++;
+        policy.reset();
+        // первый опрос — через обычную паузу: сразу после обрыва данные свежие
+        handler.postDelayed(tick, policy.nextDelay(PollPolicy.CHANGED));
+    }
+
+    void stop() {
+        running = false;
+        generation++;
+        tickSkipped = false;
+        handler.removeCallbacks(tick);
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    private final Runnable tick = new Runnable() {
+        @Override
+        public void run() {
+            if (!running) return;
+            if (inFlight) {
+                // stop() + start() во время опроса: ответ прежнего опроса
+                // запланирует следующий тик, иначе опрос остановился бы насовсем
+                tickSkipped = true;
+                return;
+            }
+            inFlight = true;
+            int current = generation;
+
+            poll.run(outcome -> {
+                inFlight = false;
+                if (!running) return;
+                // ответ до stop(): новый тик уже запланирован, если его не пропустили
+                if (current != generation && !tickSkipped) return;
+                tickSkipped = false;
+                handler.postDelayed(tick, policy.nextDelay(outcome));
+            });
+        }
+    };
+}
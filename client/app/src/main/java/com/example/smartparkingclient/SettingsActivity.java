@@ -1,10 +1,13 @@
 package com.example.smartparkingclient;
 
+import android.content.Intent;
 import android.os.Bundle;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
 import android.widget.Switch;
+import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
@@ -17,6 +20,7 @@ public class SettingsActivity extends AppCompatActivity {
     private RadioButton rbThemeLight, rbThemeDark;
     private RadioButton rbLangRu, rbLangEn;
     private Switch switchNotify;
+    private EditText editServerUrl;
     private Button btnApply;
 
     private String lastTheme;
@@ -42,8 +46,15 @@ public class SettingsActivity extends AppCompatActivity {
         rbLangEn = findViewById(R.id.rbLangEn);
 
         switchNotify = findViewById(R.id.switchNotify);
+        editServerUrl = findViewById(R.id.editServerUrl);
         btnApply = findViewById(R.id.btnApply);
 
+        // скрытый экран сетевых метрик
+        findViewById(R.id.textServerTitle).setOnLongClickListener(v -> {
+            startActivity(new Intent(this, DebugMetricsActivity.class));
+            return true;
+        });
+
         // подставляем текущие значения из AppPrefs
         loadCurrentSettingsToUI();
 
@@ -118,6 +129,9 @@ public class SettingsActivity extends AppCompatActivity {
         // Уведомления
         boolean notify = AppPrefs.isNotificationsEnabled(this);
         switchNotify.setChecked(notify);
+
+        // Адрес сервера
+        editServerUrl.setText(AppPrefs.getServerUrl(this));
     }
 
     private void saveSettingsFromUI() {
@@ -130,13 +144,34 @@ public class SettingsActivity extends AppCompatActivity {
         } else {
             theme = "light";
         }
-        AppPrefs.setTheme(this, theme);
+        AppPrefs.Transaction prefs = AppPrefs.edit(this).setTheme(theme);
 
         // Язык
         String lang = rbLangEn.isChecked() ? "en" : "ru";
-        AppPrefs.setLang(this, lang);
+        prefs.setLang(lang);
 
         // Уведомления
-        AppPrefs.setNotificationsEnabled(this, switchNotify.isChecked());
+        prefs.setNotificationsEnabled(switchNotify.isChecked());
+
+        // Адрес сервера
+        String url = editServerUrl.getText().toString().trim();
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        boolean urlChanged = false;
+        if (!url.equals(AppPrefs.getServerUrl(this))) {
+            if (ApiClient.isValidBaseUrl(url)) {
+                prefs.setServerUrl(url);
+                urlChanged = true;
+            } else {
+                Toast.makeText(this, "Некорректный адрес сервера", Toast.LENGTH_SHORT).show();
+            }
+        }
+
+        prefs.commit(); // всё одной записью
+        if (urlChanged) {
+            ApiClient.get(this).warmUp();
+            ParkingRepository.get(this).onServerChanged();
+        }
     }
 }
@@ -0,0 +1,17 @@
+package com.example.smartparkingclient;
+
+import android.app.Application;
+
+public class SmartParkingApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // общий сетевой клиент + прогрев соединения с сервером
+        ApiClient.get(this).warmUp();
+
+        // действия, не дошедшие до сервера в прошлый раз
+        ActionQueue.get(this).flush();
+    }
+}
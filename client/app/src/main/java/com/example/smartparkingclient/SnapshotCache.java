@@ -0,0 +1,98 @@
+package com.example.smartparkingclient;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import com.example.smartparkingclient.core.ParkingSnapshot;
+import com.example.smartparkingclient.core.SnapshotCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Последний полученный снимок парковки на диске (filesDir/snapshot.bin).
+ *
+ * Нужен, чтобы экран парковки сразу показывал последнее известное состояние,
+ * пока идёт запрос к серверу. Снимок привязан к адресу сервера: после смены
+ * адреса старый кэш не используется. Хранится только открытый уровень
+ * (загруженные страницы) — с ним приложение и откроется.
+ */
+public final class SnapshotCache {
+
+    private static final String FILE_NAME = "snapshot.bin";
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor();
+
+    private SnapshotCache() {
+    }
+
+    public static final class Entry {
+        public final ParkingSnapshot snapshot;
+        public final long savedAt;
+        public final int level;         // -1 — сервер без уровней
+        public final int nextOffset;    // следующая страница уровня, -1 — загружен целиком
+
+        Entry(ParkingSnapshot snapshot, long savedAt, int level, int nextOffset) {
+            this.snapshot = snapshot;
+            this.savedAt = savedAt;
+            this.level = level;
+            this.nextOffset = nextOffset;
+        }
+    }
+
+    // Снимок для текущего адреса сервера или null
+    public static Entry load(Context context) {
+        File file = file(context);
+        if (!file.exists()) return null;
+
+        try (DataInputStream in = new DataInputStream(new AtomicFile(file).openRead())) {
+            String serverUrl = in.readUTF();
+            long savedAt = in.readLong();
+            int level = in.readInt();
+            int nextOffset = in.readInt();
+            if (!serverUrl.equals(AppPrefs.getServerUrl(context))) return null;
+            return new Entry(SnapshotCodec.read(in), savedAt, level, nextOffset);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Снимок кодируется сразу (он меняется на UI-потоке), на диск пишется в фоне
+    public static void save(Context context, ParkingSnapshot snapshot, int level, int nextOffset) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + snapshot.size() * 2);
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(AppPrefs.getServerUrl(context));
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(level);
+            out.writeInt(nextOffset);
+            SnapshotCodec.write(snapshot, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // в память запись не падает
+        }
+
+        AtomicFile file = new AtomicFile(file(context));
+        writer.execute(() -> {
+            FileOutputStream out = null;
+            try {
+                out = file.startWrite();
+                bytes.writeTo(out);
+                file.finishWrite(out);
+            } catch (IOException e) {
+                if (out != null) file.failWrite(out);
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private static File file(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.smartparkingclient;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * История поездок: таблица trips в ParkingDb.
+ *
+ * Запись только добавляется (одна строка на поездку, в фоне),
+ * чтение — страницами от новых к старым, тоже в фоне (loadPage).
+ */
+public final class TripHistory {
+
+    public static final int PAGE_SIZE = 20;
+
+    // Формат старых записей из AppPrefs.KEY_TRIP_HISTORY
+    private static final Pattern LEGACY_RECORD = Pattern.compile(
+            "Место (\\d+), (\\d+) мин \\((\\d+) ч\\), списано (\\d+) ₽\\. Остаток: (\\d+) ₽");
+
+    // запись и чтение идут по одной и по порядку: страница видит все добавленные поездки.
+    // Первое обращение к базе создаёт её и переносит старую историю — тоже здесь, не в UI
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface PageCallback {
+        void onPage(List<Trip> trips);
+    }
+
+    private TripHistory() {
+    }
+
+    public static final class Trip {
+        public final long rowId;
+        public final int placeId;
+        public final long minutes;
+        public final long billedMinutes;   // оплаченное время по тарифу
+        public final int cost;
+        public final int balanceAfter;
+        public final long finishedAt;
+
+        public Trip(int placeId, long minutes, long billedMinutes, int cost, int balanceAfter,
+                    long finishedAt) {
+            this(0, placeId, minutes, billedMinutes, cost, balanceAfter, finishedAt);
+        }
+
+        Trip(long rowId, int placeId, long minutes, long billedMinutes, int cost,
+             int balanceAfter, long finishedAt) {
+            this.rowId = rowId;
+            this.placeId = placeId;
+            this.minutes = minutes;
+            this.billedMinutes = billedMinutes;
+            this.cost = cost;
+            this.balanceAfter = balanceAfter;
+            this.finishedAt = finishedAt;
+        }
+
+        // Прежняя строка истории (вместо часов — оплаченное время) плюс дата выезда
+        public String format() {
+            String record = "Место " + placeId +
+                    ", " + minutes + " мин (оплачено " + formatBilled(billedMinutes) + "), " +
+                    "списано " + cost + " ₽. Остаток: " + balanceAfter + " ₽";
+            if (finishedAt <= 0) return record;
+
+            String date = new SimpleDateFormat("dd.MM.yyyy HH:mm", Locale.getDefault())
+                    .format(new Date(finishedAt));
+            return date + " — " + record;
+        }
+
+        // 75 → "1 ч 15 мин", 120 → "2 ч", 0 → "0 мин"
+        private static String formatBilled(long minutes) {
+            long hours = minutes / 60;
+            long rest = minutes % 60;
+            if (hours == 0) return rest + " мин";
+            return rest == 0 ? hours + " ч" : hours + " ч " + rest + " мин";
+        }
+    }
+
+    // ---------- ЗАПИСЬ ----------
+    public static void add(Context context, Trip trip) {
+        ParkingDb db = ParkingDb.get(context);
+        worker.execute(() -> db.getWritableDatabase()
+                .insert(ParkingDb.TABLE_TRIPS, null, toValues(trip)));
+    }
+
+    // ---------- ЧТЕНИЕ ----------
+
+    // Страница загружается в фоне, callback — в главном потоке
+    public static void loadPage(Context context, long beforeRowId, int limit, PageCallback callback) {
+        Context appContext = context.getApplicationContext();
+        worker.execute(() -> {
+            List<Trip> trips = page(appContext, beforeRowId, limit);
+            mainHandler.post(() -> callback.onPage(trips));
+        });
+    }
+
+    // Страница поездок старее beforeRowId (для первой страницы — Long.MAX_VALUE).
+    // Ходит в базу — не из главного потока
+    static List<Trip> page(Context context, long beforeRowId, int limit) {
+        List<Trip> trips = new ArrayList<>(limit);
+
+        try (Cursor c = ParkingDb.get(context).getReadableDatabase().query(
+                ParkingDb.TABLE_TRIPS, null,
+                ParkingDb.COL_ID + " < ?", new String[]{String.valueOf(beforeRowId)},
+                null, null, ParkingDb.COL_ID + " DESC", String.valueOf(limit))) {
+
+            int id = c.getColumnIndexOrThrow(ParkingDb.COL_ID);
+            int place = c.getColumnIndexOrThrow(ParkingDb.COL_PLACE_ID);
+            int minutes = c.getColumnIndexOrThrow(ParkingDb.COL_MINUTES);
+            int billed = c.getColumnIndexOrThrow(ParkingDb.COL_BILLED_MINUTES);
+            int cost = c.getColumnIndexOrThrow(ParkingDb.COL_COST);
+            int balance = c.getColumnIndexOrThrow(ParkingDb.COL_BALANCE_AFTER);
+            int finished = c.getColumnIndexOrThrow(ParkingDb.COL_FINISHED_AT);
+
+            while (c.moveToNext()) {
+                trips.add(new Trip(c.getLong(id), c.getInt(place), c.getLong(minutes),
+                        c.getLong(billed), c.getInt(cost), c.getInt(balance), c.getLong(finished)));
+            }
+        }
+        return trips;
+    }
+
+    // ---------- ПЕРЕНОС СТАРОЙ ИСТОРИИ ----------
+    // Вызывается из ParkingDb.onCreate: строка из SharedPreferences разбирается
+    // в записи (старые — первыми) и удаляется из настроек.
+    static void migrateLegacy(Context context, SQLiteDatabase db) {
+        String legacy = AppPrefs.takeLegacyTripHistory(context);
+        if (legacy == null || legacy.isEmpty()) return;
+
+        String[] lines = legacy.split("\n");
+        for (int i = lines.length - 1; i >= 0; i--) {
+            Matcher m = LEGACY_RECORD.matcher(lines[i].trim());
+            if (!m.matches()) continue;
+
+            Trip trip = new Trip(
+                    Integer.parseInt(m.group(1)),
+                    Long.parseLong(m.group(2)),
+                    Integer.parseInt(m.group(3)) * 60L, // старый тариф был почасовым
+                    Integer.parseInt(m.group(4)),
+                    Integer.parseInt(m.group(5)),
+                    0L);
+            db.insert(ParkingDb.TABLE_TRIPS, null, toValues(trip));
+        }
+    }
+
+    private static ContentValues toValues(Trip trip) {
+        ContentValues values = new ContentValues();
+        values.put(ParkingDb.COL_PLACE_ID, trip.placeId);
+        values.put(ParkingDb.COL_MINUTES, trip.minutes);
+        values.put(ParkingDb.COL_BILLED_MINUTES, trip.billedMinutes);
+        values.put(ParkingDb.COL_COST, trip.cost);
+        values.put(ParkingDb.COL_BALANCE_AFTER, trip.balanceAfter);
+        values.put(ParkingDb.COL_FINISHED_AT, trip.finishedAt);
+        return values;
+    }
+}
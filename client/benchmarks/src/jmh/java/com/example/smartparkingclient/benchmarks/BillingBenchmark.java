@@ -0,0 +1,70 @@
+package com.example.smartparkingclient.benchmarks;
+
+import com.example.smartparkingclient.core.Tariff;
+import com.example.smartparkingclient.core.TariffEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.ZoneId;
+
+/**
+ * Расчёт оплаты при выезде: прежний код из колбэка против TariffEngine
+ * (стандартный тариф и тариф с ночной ставкой, бесплатными минутами и потолком).
+ */
+@State(Scope.Thread)
+public class BillingBenchmark {
+
+    private static final long MINUTE = 60_000L;
+
+    private TariffEngine standard;
+    private TariffEngine complex;
+    private long start;
+    private long step;
+
+    @Setup
+    public void setUp() {
+        ZoneId zone = ZoneId.of("Europe/Moscow");
+        standard = TariffEngine.of(Tariff.standard(), zone);
+        complex = TariffEngine.of(Tariff.builder()
+                .hourlyRate(80)
+                .nightRate(30, 22 * 60, 7 * 60)
+                .graceMinutes(10)
+                .dailyCap(900)
+                .stepMinutes(15)
+                .build(), zone);
+        start = 1_700_000_000_000L;
+    }
+
+    // длительность меняется от вызова к вызову, чтобы результат не свернулся в константу
+    private long end() {
+        step = (step + 37) % (3 * 24 * 60);
+        return start + (step + 1) * MINUTE;
+    }
+
+    @Benchmark
+    public int legacyInline() {
+        long now = end();
+        long minutes = 1;
+        if (start > 0 && now > start) {
+            minutes = (now - start) / 60000;
+            if (minutes <= 0) minutes = 1;
+        }
+        int pricePerHour = 50;
+        int hours = (int) ((minutes + 59) / 60);
+        if (hours <= 0) hours = 1;
+        return hours * pricePerHour;
+    }
+
+    @Benchmark
+    public int tariffStandard() {
+        return standard.cost(TariffEngine.DEFAULT_ZONE, start, end());
+    }
+
+    @Benchmark
+    public int tariffComplex() {
+        return complex.cost(TariffEngine.DEFAULT_ZONE, start, end());
+    }
+}
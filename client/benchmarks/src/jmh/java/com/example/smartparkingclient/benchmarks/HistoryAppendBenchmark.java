@@ -0,0 +1,97 @@
+package com.example.smartparkingclient.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Добавление поездки в историю.
+ *
+ * prependString — прежний AppPrefs.addTripToHistory: новая запись ставится перед
+ * всей историей, и строка целиком кодируется заново (так SharedPreferences
+ * переписывает файл). insertRow — как TripHistory.add: одна строка вставляется
+ * в таблицу trips (SQLite в памяти через JDBC; на устройстве добавится запись
+ * журнала на диск, но она тоже не зависит от длины истории).
+ */
+@State(Scope.Thread)
+public class HistoryAppendBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int trips;
+
+    private String history;
+    private int counter;
+
+    private Connection db;
+    private PreparedStatement insert;
+
+    @Setup
+    public void setUp() throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < trips; i++) {
+            if (i > 0) sb.append('\n');
+            sb.append(record(i));
+        }
+        history = sb.toString();
+
+        // та же схема, что ParkingDb.TABLE_TRIPS, и столько же поездок
+        db = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement st = db.createStatement()) {
+            st.execute("CREATE TABLE trips (" +
+                    "_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "place_id INTEGER NOT NULL, " +
+                    "minutes INTEGER NOT NULL, " +
+                    "billed_minutes INTEGER NOT NULL, " +
+                    "cost INTEGER NOT NULL, " +
+                    "balance_after INTEGER NOT NULL, " +
+                    "finished_at INTEGER NOT NULL)");
+        }
+        insert = db.prepareStatement("INSERT INTO trips " +
+                "(place_id, minutes, billed_minutes, cost, balance_after, finished_at) VALUES (?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < trips; i++) {
+            insertRow(i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        insert.close();
+        db.close();
+    }
+
+    private static String record(int i) {
+        return "Место " + (i % 20 + 1) + ", " + (i % 300 + 1) + " мин (" + (i % 5 + 1) + " ч), " +
+                "списано " + (i % 5 + 1) * 50 + " ₽. Остаток: " + (1000 - i % 1000) + " ₽";
+    }
+
+    private int insertRow(int i) throws SQLException {
+        insert.setInt(1, i % 20 + 1);
+        insert.setLong(2, i % 300 + 1);
+        insert.setLong(3, (i % 5 + 1) * 60L);
+        insert.setInt(4, (i % 5 + 1) * 50);
+        insert.setInt(5, 1000 - i % 1000);
+        insert.setLong(6, 1_700_000_000_000L + i);
+        return insert.executeUpdate();
+    }
+
+    @Benchmark
+    public byte[] prependString() {
+        String newHistory = record(counter++) + "\n" + history;
+        return newHistory.trim().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int insertRow() throws SQLException {
+        return insertRow(trips + counter++);
+    }
+}
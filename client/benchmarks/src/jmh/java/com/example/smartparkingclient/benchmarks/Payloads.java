@@ -0,0 +1,27 @@
+package com.example.smartparkingclient.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+// Ответы сервера того же вида, что отдаёт /places
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    static byte[] places(int spots, long version, boolean full, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(spots * 32 + 64);
+        sb.append("{\"version\": ").append(version)
+                .append(", \"full\": ").append(full)
+                .append(", \"places\": [");
+        for (int i = 0; i < spots; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append("{\"id\": ").append(i + 1)
+                    .append(", \"status\": \"").append(random.nextInt(3) == 0 ? "busy" : "free")
+                    .append("\"}");
+        }
+        sb.append("]}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.smartparkingclient.benchmarks;
+
+import com.example.smartparkingclient.core.PlacesParser;
+import com.example.smartparkingclient.core.PlacesPayload;
+import com.example.smartparkingclient.core.SpotStatus;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Разбор ответа /places: потоковый PlacesParser против прежнего пути
+ * (строка тела → JSONObject → поля мест).
+ */
+@State(Scope.Thread)
+public class PlacesParseBenchmark {
+
+    @Param({"20", "1000", "10000"})
+    public int spots;
+
+    private byte[] body;
+    private PlacesPayload reused;
+
+    @Setup
+    public void setUp() {
+        body = Payloads.places(spots, 42, true, 1);
+        reused = new PlacesPayload(spots);
+    }
+
+    @Benchmark
+    public PlacesPayload streaming() throws IOException {
+        return PlacesParser.parse(new ByteArrayInputStream(body));
+    }
+
+    // тот же разбор в заранее выделенные массивы
+    @Benchmark
+    public PlacesPayload streamingReused() throws IOException {
+        return PlacesParser.parse(new ByteArrayInputStream(body), reused);
+    }
+
+    @Benchmark
+    public int orgJson() {
+        JSONObject root = new JSONObject(new String(body, StandardCharsets.UTF_8));
+        JSONArray places = root.getJSONArray("places");
+        int free = 0;
+        for (int i = 0; i < places.length(); i++) {
+            JSONObject place = places.getJSONObject(i);
+            place.getInt("id");
+            if (SpotStatus.fromWire(place.getString("status")) == SpotStatus.FREE) free++;
+        }
+        return free;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.smartparkingclient.benchmarks;
+
+import com.example.smartparkingclient.core.ParkingSnapshot;
+import com.example.smartparkingclient.core.PlacesParser;
+import com.example.smartparkingclient.core.PlacesPayload;
+import com.example.smartparkingclient.core.SpotStatus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Список мест на экране: построение снимка из полного ответа
+ * и применение дельты (1% мест меняют статус), выбор лучшего свободного места.
+ */
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+
+    @Param({"20", "1000", "10000"})
+    public int spots;
+
+    private PlacesPayload full;
+    private PlacesPayload[] deltas;
+    private ParkingSnapshot snapshot;
+    private int nextDelta;
+
+    @Setup
+    public void setUp() throws IOException {
+        full = PlacesParser.parse(new ByteArrayInputStream(Payloads.places(spots, 1, true, 1)));
+        snapshot = ParkingSnapshot.of(full);
+
+        // две дельты по очереди переключают одни и те же места туда и обратно
+        int changed = Math.max(1, spots / 100);
+        deltas = new PlacesPayload[2];
+        for (int d = 0; d < 2; d++) {
+            StringBuilder sb = new StringBuilder("{\"version\": 0, \"full\": false, \"places\": [");
+            for (int i = 0; i < changed; i++) {
+                int index = i * (spots / changed);
+                boolean free = full.statuses[index] == SpotStatus.FREE;
+                if (d == 1) free = !free;
+                if (i > 0) sb.append(", ");
+                sb.append("{\"id\": ").append(full.ids[index])
+                        .append(", \"status\": \"").append(free ? "busy" : "free").append("\"}");
+            }
+            sb.append("]}");
+            deltas[d] = PlacesParser.parse(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Benchmark
+    public ParkingSnapshot build() {
+        return ParkingSnapshot.of(full);
+    }
+
+    @Benchmark
+    public int[] applyDelta() {
+        PlacesPayload delta = deltas[nextDelta];
+        nextDelta ^= 1;
+        delta.version = snapshot.version() + 1;
+        return snapshot.applyDelta(delta);
+    }
+
+    @Benchmark
+    public int countersAndNextFree() {
+        return snapshot.freeCount() + snapshot.loadPercent() + snapshot.nextFree(spots / 2);
+    }
+
+    // заезд на лучшее место и выезд с него: индекс свободных мест меняется на каждом шаге
+    @Benchmark
+    public int takeAndReleaseBest() {
+        int best = snapshot.bestFree();
+        snapshot.setStatus(best, SpotStatus.BUSY);
+        int next = snapshot.bestFree();
+        snapshot.setStatus(best, SpotStatus.FREE);
+        return next;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.smartparkingclient.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Отправка SpotBatch на POST /ingest.
+ *
+ * Только JDK (HttpURLConnection): работает и в приложении, и в JVM-утилитах.
+ * Вызов блокирующий — из фонового потока.
+ */
+public final class BatchClient {
+
+    public static final class Result {
+        public final int code;              // 200 — применено, 409 — конфликт, ничего не изменено
+        public final PlacesPayload places;  // места пачки после запроса, в формате дельты /places
+
+        Result(int code, PlacesPayload places) {
+            this.code = code;
+            this.places = places;
+        }
+
+        public boolean isConflict() {
+            return code == HttpURLConnection.HTTP_CONFLICT;
+        }
+
+        // Пачка что-то изменила (сервер выдал новую версию)
+        public boolean isChanged() {
+            return places.version > places.baseVersion;
+        }
+    }
+
+    private final String ingestUrl;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    public BatchClient(String baseUrl) {
+        this(baseUrl, 5_000, 10_000);
+    }
+
+    public BatchClient(String baseUrl, int connectTimeoutMs, int readTimeoutMs) {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.ingestUrl = base + "/ingest";
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    // Пустую пачку не отправляем. Ошибка формата (4xx кроме 409) и 5xx — IOException
+    public Result send(SpotBatch batch) throws IOException {
+        if (batch.isEmpty()) return new Result(HttpURLConnection.HTTP_OK, new PlacesPayload(0));
+
+        byte[] body = batch.toJson().getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = (HttpURLConnection) new URL(ingestUrl).openConnection();
+        try {
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int code = connection.getResponseCode();
+            if (code != HttpURLConnection.HTTP_OK && code != HttpURLConnection.HTTP_CONFLICT) {
+                throw new IOException("POST /ingest: HTTP " + code);
+            }
+            try (InputStream in = code == HttpURLConnection.HTTP_OK
+                    ? connection.getInputStream() : connection.getErrorStream()) {
+                return new Result(code, PlacesParser.parse(in));
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
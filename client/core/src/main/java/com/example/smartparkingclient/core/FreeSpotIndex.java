@@ -0,0 +1,105 @@
+package com.example.smartparkingclient.core;
+
+/**
+ * Свободные места в порядке удалённости от въезда.
+ *
+ * Позиция в индексе — это индекс места в снимке: сервер нумерует места от
+ * въезда, схема рисует ряды от въезда, так что меньший индекс — ближе.
+ * Биты свободных мест лежат в иерархии слов по 64: слово верхнего уровня
+ * отмечает непустые слова нижнего. Лучшее место и следующее свободное
+ * находятся за O(log64 n) — для 10 000 мест это три слова, а не весь массив.
+ */
+public final class FreeSpotIndex {
+
+    // levels[0] — по биту на место, levels[k + 1] — по биту на непустое слово levels[k];
+    // на верхнем уровне одно слово
+    private final long[][] levels;
+    private final int size;
+    private int count;
+
+    public FreeSpotIndex(int size) {
+        this.size = size;
+
+        int depth = 1;
+        for (int words = wordsFor(size); words > 1; words = wordsFor(words)) {
+            depth++;
+        }
+        levels = new long[depth][];
+        int bits = size;
+        for (int level = 0; level < depth; level++) {
+            levels[level] = new long[Math.max(1, wordsFor(bits))];
+            bits = levels[level].length;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Сколько мест отмечено свободными
+    public int count() {
+        return count;
+    }
+
+    public boolean get(int index) {
+        return (levels[0][index >>> 6] & (1L << index)) != 0;
+    }
+
+    // ---------- ИЗМЕНЕНИЯ ----------
+    public void set(int index) {
+        if (get(index)) return;
+        count++;
+        for (int level = 0; level < levels.length; level++) {
+            long[] words = levels[level];
+            int w = index >>> 6;
+            boolean wasEmpty = words[w] == 0;
+            words[w] |= 1L << index;
+            if (!wasEmpty) return; // выше уже отмечено
+            index = w;
+        }
+    }
+
+    public void clear(int index) {
+        if (!get(index)) return;
+        count--;
+        for (int level = 0; level < levels.length; level++) {
+            long[] words = levels[level];
+            int w = index >>> 6;
+            words[w] &= ~(1L << index);
+            if (words[w] != 0) return; // в слове остались свободные места
+            index = w;
+        }
+    }
+
+    // ---------- ПОИСК ----------
+
+    // Ближайшее к въезду свободное место или -1
+    public int first() {
+        return next(0);
+    }
+
+    // Первое свободное место с индексом >= fromIndex или -1
+    public int next(int fromIndex) {
+        if (fromIndex >= size) return -1;
+        return next(0, Math.max(0, fromIndex));
+    }
+
+    private int next(int level, int from) {
+        long[] words = levels[level];
+        int w = from >>> 6;
+        if (w >= words.length) return -1;
+
+        long word = words[w] & (-1L << from);
+        if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+        if (level + 1 == levels.length) return -1;
+
+        // в этом слове дальше пусто — следующее непустое слово ищем уровнем выше
+        int nextWord = next(level + 1, w + 1);
+        if (nextWord < 0) return -1;
+        return (nextWord << 6) + Long.numberOfTrailingZeros(words[nextWord]);
+    }
+
+    private static int wordsFor(int bits) {
+        return (bits + 63) >>> 6;
+    }
+}
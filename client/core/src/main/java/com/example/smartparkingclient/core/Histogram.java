@@ -0,0 +1,90 @@
+package com.example.smartparkingclient.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма неотрицательных значений (миллисекунды, байты) с логарифмическими
+ * корзинами: значения до 16 хранятся точно, дальше каждая степень двойки
+ * делится на 8 корзин — перцентили получаются с погрешностью до ~12%.
+ *
+ * Запись без блокировок и выделений, можно писать из потоков OkHttp.
+ */
+public final class Histogram {
+
+    private static final int SUB_BITS = 3;                   // 8 корзин на степень двойки
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int LINEAR = SUB_COUNT * 2;         // 0..15 — точно
+    private static final int BUCKETS = LINEAR + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucketOf(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // другой поток обновил максимум — пробуем снова
+        }
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Значение перцентиля p (0..100): верхняя граница корзины, в которую он попал,
+     * но не больше максимума. 0 — если записей нет.
+     */
+    public long percentile(double p) {
+        long n = total.get();
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, p)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    // ---------- КОРЗИНЫ ----------
+    static int bucketOf(long value) {
+        if (value < LINEAR) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);      // >= 4
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return LINEAR + (exponent - SUB_BITS - 1) * SUB_COUNT + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exponent = (bucket - LINEAR) / SUB_COUNT + SUB_BITS + 1;
+        int sub = (bucket - LINEAR) % SUB_COUNT;
+        long width = 1L << (exponent - SUB_BITS);
+        long lower = (1L << exponent) + sub * width;
+        return lower + width - 1;
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.smartparkingclient.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Потоковый разбор JSON прямо из байтов ответа, без построения дерева.
+ *
+ * Читает через собственный буфер и ничего не выделяет на ключи и известные
+ * строковые значения: они сравниваются с заранее заданными байтами.
+ * Запятые и двоеточия читаются нестрого — формат задаёт сервер.
+ */
+public final class JsonPullReader {
+
+    private static final byte[][] NO_NAMES = new byte[0][];
+
+    private final InputStream in;
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+
+    public JsonPullReader(InputStream in) {
+        this(in, 8192);
+    }
+
+    public JsonPullReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buf = new byte[bufferSize];
+    }
+
+    // Ключи и значения для сравнения без выделения строк
+    public static byte[][] names(String... values) {
+        byte[][] result = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    // ---------- СТРУКТУРА ----------
+    public void beginObject() throws IOException {
+        expect('{');
+    }
+
+    public void endObject() throws IOException {
+        expect('}');
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+    }
+
+    public void endArray() throws IOException {
+        expect(']');
+    }
+
+    // Есть ли ещё элемент в текущем объекте/массиве (разделяющая запятая пропускается)
+    public boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == ',') {
+            pos++;
+            c = peek();
+        }
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    public boolean nextIsNull() throws IOException {
+        return peek() == 'n';
+    }
+
+    // ---------- КЛЮЧИ ----------
+
+    // Читает ключ вместе с двоеточием и возвращает его номер в known (или -1)
+    public int nextName(byte[][] known) throws IOException {
+        int index = nextStringIndex(known);
+        expect(':');
+        return index;
+    }
+
+    // ---------- ЗНАЧЕНИЯ ----------
+
+    // Строковое значение, сравненное с known; -1 если не совпало ни с одним
+    public int nextStringIndex(byte[][] known) throws IOException {
+        expect('"');
+
+        if (known.length > 31) throw new IllegalArgumentException("too many names");
+        int matchMask = (1 << known.length) - 1;
+        int length = 0;
+
+        while (true) {
+            int b = read();
+            if (b == -1) throw error("unterminated string");
+            if (b == '"') break;
+            if (b == '\\') {
+                b = readEscape();
+                if (b > 0x7F) {
+                    matchMask = 0; // не-ASCII из \\u в известных именах не встречается
+                    continue;
+                }
+            }
+            for (int i = 0; i < known.length; i++) {
+                if ((matchMask & (1 << i)) != 0
+                        && (length >= known[i].length || known[i][length] != (byte) b)) {
+                    matchMask &= ~(1 << i);
+                }
+            }
+            length++;
+        }
+
+        for (int i = 0; i < known.length; i++) {
+            if ((matchMask & (1 << i)) != 0 && known[i].length == length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String nextString() throws IOException {
+        expect('"');
+
+        byte[] out = new byte[32];
+        int length = 0;
+        while (true) {
+            int b = read();
+            if (b == -1) throw error("unterminated string");
+            if (b == '"') break;
+
+            if (b == '\\') {
+                int code = readEscape();
+                if (Character.isHighSurrogate((char) code) && read() == '\\' && read() == 'u') {
+                    code = Character.toCodePoint((char) code, (char) readHex4());
+                }
+                if (code > 0x7F) {
+                    byte[] encoded = new String(Character.toChars(code))
+                            .getBytes(StandardCharsets.UTF_8);
+                    for (byte x : encoded) {
+                        if (length == out.length) out = grow(out);
+                        out[length++] = x;
+                    }
+                    continue;
+                }
+                b = code;
+            }
+
+            if (length == out.length) out = grow(out);
+            out[length++] = (byte) b;
+        }
+        return new String(out, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public long nextLong() throws IOException {
+        int c = peek();
+        boolean negative = c == '-';
+        if (negative) pos++;
+
+        long value = 0;
+        int digits = 0;
+        while (true) {
+            c = peekRaw();
+            if (c < '0' || c > '9') break;
+            value = value * 10 + (c - '0');
+            digits++;
+            pos++;
+        }
+        if (digits == 0) throw error("number expected");
+
+        // дробную часть и экспоненту отбрасываем: сервер шлёт целые
+        if (c == '.' || c == 'e' || c == 'E') {
+            skipNumberTail();
+        }
+        return negative ? -value : value;
+    }
+
+    public int nextInt() throws IOException {
+        return (int) nextLong();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        int c = peek();
+        if (c == 't') {
+            expectLiteral("true");
+            return true;
+        }
+        expectLiteral("false");
+        return false;
+    }
+
+    public void nextNull() throws IOException {
+        expectLiteral("null");
+    }
+
+    // Пропуск значения любого типа (неизвестные поля)
+    public void skipValue() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '{':
+                beginObject();
+                while (hasNext()) {
+                    nextName(NO_NAMES);
+                    skipValue();
+                }
+                endObject();
+                break;
+            case '[':
+                beginArray();
+                while (hasNext()) skipValue();
+                endArray();
+                break;
+            case '"':
+                nextStringIndex(NO_NAMES);
+                break;
+            case 't':
+            case 'f':
+                nextBoolean();
+                break;
+            case 'n':
+                nextNull();
+                break;
+            default:
+                nextLong();
+        }
+    }
+
+    // ---------- БУФЕР ----------
+    private int peek() throws IOException {
+        while (true) {
+            int c = peekRaw();
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                pos++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private int peekRaw() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos] & 0xFF;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    // Символ после обратной косой черты (сама черта уже прочитана)
+    private int readEscape() throws IOException {
+        int e = read();
+        switch (e) {
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'r': return '\r';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'u': return readHex4();
+            case -1: throw error("unterminated string");
+            default: return e; // \" \\ \/
+        }
+    }
+
+    private int readHex4() throws IOException {
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) throw error("bad \\u escape");
+            code = (code << 4) | digit;
+        }
+        return code;
+    }
+
+    private void expect(char c) throws IOException {
+        int actual = peek();
+        if (actual != c) {
+            throw error("expected '" + c + "' but was " + describe(actual));
+        }
+        pos++;
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        peek();
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) throw error(literal + " expected");
+        }
+    }
+
+    private void skipNumberTail() throws IOException {
+        while (true) {
+            int c = peekRaw();
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static byte[] grow(byte[] array) {
+        byte[] bigger = new byte[array.length * 2];
+        System.arraycopy(array, 0, bigger, 0, array.length);
+        return bigger;
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "end of input" : "'" + (char) c + "'";
+    }
+
+    private static IOException error(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
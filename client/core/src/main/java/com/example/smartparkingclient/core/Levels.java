@@ -0,0 +1,123 @@
+package com.example.smartparkingclient.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Уровни парковки из /levels:
+ * {"version": 12, "levels": [{"level": 0, "first_id": 1, "count": 200, "free": 150, "busy": 50}, ...]}
+ *
+ * По счётчикам уровней считаются итоги по всей парковке —
+ * клиенту не нужно держать в памяти все места сразу.
+ */
+public final class Levels {
+
+    private static final byte[][] ROOT_NAMES = JsonPullReader.names("version", "levels");
+    private static final byte[][] LEVEL_NAMES =
+            JsonPullReader.names("level", "first_id", "count", "free", "busy");
+
+    public static final class Level {
+        public int level;
+        public int firstId;
+        public int count;
+        public int free;
+        public int busy;
+    }
+
+    public long version = -1;
+    public final List<Level> levels = new ArrayList<>();
+
+    public static Levels parse(InputStream in) throws IOException {
+        Levels result = new Levels();
+
+        JsonPullReader reader = new JsonPullReader(in, 1024);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(ROOT_NAMES)) {
+                case 0:
+                    result.version = reader.nextLong();
+                    break;
+                case 1:
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        result.levels.add(readLevel(reader));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return result;
+    }
+
+    private static Level readLevel(JsonPullReader reader) throws IOException {
+        Level level = new Level();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(LEVEL_NAMES)) {
+                case 0:
+                    level.level = reader.nextInt();
+                    break;
+                case 1:
+                    level.firstId = reader.nextInt();
+                    break;
+                case 2:
+                    level.count = reader.nextInt();
+                    break;
+                case 3:
+                    level.free = reader.nextInt();
+                    break;
+                case 4:
+                    level.busy = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return level;
+    }
+
+    // ---------- ИТОГИ ----------
+    public int size() {
+        return levels.size();
+    }
+
+    public Level get(int index) {
+        return levels.get(index);
+    }
+
+    // Уровень, на котором место id, или -1
+    public int levelOf(int id) {
+        for (Level level : levels) {
+            if (id >= level.firstId && id < level.firstId + level.count) return level.level;
+        }
+        return -1;
+    }
+
+    public int free() {
+        int sum = 0;
+        for (Level level : levels) sum += level.free;
+        return sum;
+    }
+
+    public int total() {
+        int sum = 0;
+        for (Level level : levels) sum += level.count;
+        return sum;
+    }
+
+    public int busy() {
+        return total() - free();
+    }
+
+    // Как считает сервер: int(busy / total * 100)
+    public int loadPercent() {
+        int total = total();
+        return total == 0 ? 0 : busy() * 100 / total;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.smartparkingclient.core;
+
+import java.util.Arrays;
+
+/**
+ * Снимок состояния парковки.
+ *
+ * Места лежат в параллельных массивах (id и статус SpotStatus) в порядке сервера.
+ * Свободные места дополнительно отмечены в FreeSpotIndex: счётчики свободных/занятых
+ * обновляются за O(1), а ближайшее к въезду свободное место ищется по битам.
+ */
+public final class ParkingSnapshot {
+
+    private final int[] ids;
+    private final byte[] statuses;
+    private final int count;
+    private final FreeSpotIndex free;
+    private long version;
+
+    // id → индекс: при сплошной нумерации считаем арифметикой, иначе хеш-таблица
+    private final int firstId;
+    private final boolean contiguous;
+    private final int[] indexTable;
+
+    public ParkingSnapshot(int[] ids, byte[] statuses, int count, long version) {
+        this.ids = Arrays.copyOf(ids, count);
+        this.statuses = Arrays.copyOf(statuses, count);
+        this.count = count;
+        this.version = version;
+
+        free = new FreeSpotIndex(count);
+        for (int i = 0; i < count; i++) {
+            if (this.statuses[i] == SpotStatus.FREE) {
+                free.set(i);
+            }
+        }
+
+        firstId = count > 0 ? this.ids[0] : 0;
+        boolean sequential = true;
+        for (int i = 0; i < count && sequential; i++) {
+            sequential = this.ids[i] == firstId + i;
+        }
+        contiguous = sequential;
+        indexTable = sequential ? null : buildIndexTable(this.ids, count);
+    }
+
+    // Полный ответ /places → новый снимок
+    public static ParkingSnapshot of(PlacesPayload payload) {
+        return new ParkingSnapshot(payload.ids, payload.statuses, payload.count, payload.version);
+    }
+
+    /**
+     * Снимок с дописанной в конец следующей страницей того же уровня.
+     * Версия — меньшая из двух: дельта от неё покроет и старые, и новые места.
+     */
+    public ParkingSnapshot append(PlacesPayload page) {
+        int[] newIds = Arrays.copyOf(ids, count + page.count);
+        byte[] newStatuses = Arrays.copyOf(statuses, count + page.count);
+        System.arraycopy(page.ids, 0, newIds, count, page.count);
+        System.arraycopy(page.statuses, 0, newStatuses, count, page.count);
+        long newVersion = count == 0 ? page.version : Math.min(version, page.version);
+        return new ParkingSnapshot(newIds, newStatuses, count + page.count, newVersion);
+    }
+
+    public static ParkingSnapshot empty() {
+        return new ParkingSnapshot(new int[0], new byte[0], 0, -1);
+    }
+
+    // ---------- ЧТЕНИЕ ----------
+    public int size() {
+        return count;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public byte statusAt(int index) {
+        return statuses[index];
+    }
+
+    public boolean isFree(int index) {
+        return statuses[index] == SpotStatus.FREE;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int freeCount() {
+        return free.count();
+    }
+
+    public int busyCount() {
+        return count - free.count();
+    }
+
+    // Загруженность в процентах, как считает сервер: int(busy / total * 100)
+    public int loadPercent() {
+        return count == 0 ? 0 : busyCount() * 100 / count;
+    }
+
+    // Индекс места по id или -1
+    public int indexOf(int id) {
+        if (contiguous) {
+            int index = id - firstId;
+            return index >= 0 && index < count ? index : -1;
+        }
+
+        int mask = indexTable.length - 1;
+        for (int slot = mix(id) & mask; ; slot = (slot + 1) & mask) {
+            int index = indexTable[slot] - 1; // 0 в таблице — пустая ячейка
+            if (index < 0) return -1;
+            if (ids[index] == id) return index;
+        }
+    }
+
+    // Первое свободное место с индексом >= fromIndex или -1
+    public int nextFree(int fromIndex) {
+        return free.next(fromIndex);
+    }
+
+    // Лучшее место для заезда — ближайшее к въезду свободное — или -1
+    public int bestFree() {
+        return free.first();
+    }
+
+    // ---------- ИЗМЕНЕНИЯ ----------
+
+    // Меняет статус места; true, если статус действительно изменился
+    public boolean setStatus(int index, byte status) {
+        if (statuses[index] == status) return false;
+        statuses[index] = status;
+
+        if (status == SpotStatus.FREE) {
+            free.set(index);
+        } else {
+            free.clear(index);
+        }
+        return true;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Применяет дельту /places?since=... и возвращает индексы изменившихся мест.
+     * null — в дельте есть место, которого нет в снимке: нужен полный список.
+     */
+    public int[] applyDelta(PlacesPayload delta) {
+        int[] changed = new int[delta.count];
+        int changedCount = 0;
+
+        for (int i = 0; i < delta.count; i++) {
+            if (indexOf(delta.ids[i]) < 0) return null;
+        }
+        for (int i = 0; i < delta.count; i++) {
+            int index = indexOf(delta.ids[i]);
+            if (setStatus(index, delta.statuses[i])) {
+                changed[changedCount++] = index;
+            }
+        }
+        if (delta.version > version) {
+            version = delta.version;
+        }
+        return changedCount == changed.length ? changed : Arrays.copyOf(changed, changedCount);
+    }
+
+    // ---------- ХЕШ-ИНДЕКС ----------
+    private static int[] buildIndexTable(int[] ids, int count) {
+        int capacity = Integer.highestOneBit(Math.max(4, count * 2 - 1)) << 1;
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = mix(ids[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        return table;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.smartparkingclient.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Разбор ответа GET /places прямо из потока ответа:
+ * {"version": 12, "full": false, "level": 0, "offset": 0, "total": 200,
+ *  "next_offset": 100, "places": [{"id": 1, "status": "free"}, ...]}
+ *
+ * Не строит JSON-дерево и не создаёт объектов на каждое место —
+ * id и статусы сразу складываются в массивы PlacesPayload.
+ */
+public final class PlacesParser {
+
+    private static final byte[][] ROOT_NAMES = JsonPullReader.names(
+            "version", "full", "places", "level", "offset", "total", "next_offset",
+            "base_version");
+    private static final int ROOT_VERSION = 0;
+    private static final int ROOT_FULL = 1;
+    private static final int ROOT_PLACES = 2;
+    private static final int ROOT_LEVEL = 3;
+    private static final int ROOT_OFFSET = 4;
+    private static final int ROOT_TOTAL = 5;
+    private static final int ROOT_NEXT_OFFSET = 6;
+    private static final int ROOT_BASE_VERSION = 7;
+
+    private static final byte[][] PLACE_NAMES = JsonPullReader.names("id", "status");
+    private static final int PLACE_ID = 0;
+    private static final int PLACE_STATUS = 1;
+
+    private static final byte[][] STATUS_VALUES = JsonPullReader.names(SpotStatus.WIRE_FREE);
+
+    private PlacesParser() {
+    }
+
+    public static PlacesPayload parse(InputStream in) throws IOException {
+        return parse(in, new PlacesPayload());
+    }
+
+    // into можно переиспользовать между запросами: массивы растут только при необходимости
+    public static PlacesPayload parse(InputStream in, PlacesPayload into) throws IOException {
+        into.version = -1;
+        into.full = true;
+        into.baseVersion = -1;
+        into.count = 0;
+        into.level = -1;
+        into.offset = 0;
+        into.total = -1;
+        into.nextOffset = -1;
+
+        JsonPullReader reader = new JsonPullReader(in);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(ROOT_NAMES)) {
+                case ROOT_VERSION:
+                    into.version = reader.nextLong();
+                    break;
+                case ROOT_FULL:
+                    into.full = reader.nextBoolean();
+                    break;
+                case ROOT_PLACES:
+                    readPlaces(reader, into);
+                    break;
+                case ROOT_LEVEL:
+                    into.level = readOptionalInt(reader);
+                    break;
+                case ROOT_OFFSET:
+                    into.offset = Math.max(0, readOptionalInt(reader));
+                    break;
+                case ROOT_TOTAL:
+                    into.total = readOptionalInt(reader);
+                    break;
+                case ROOT_NEXT_OFFSET:
+                    into.nextOffset = readOptionalInt(reader); // null у последней страницы
+                    break;
+                case ROOT_BASE_VERSION:
+                    into.baseVersion = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return into;
+    }
+
+    private static int readOptionalInt(JsonPullReader reader) throws IOException {
+        if (reader.nextIsNull()) {
+            reader.nextNull();
+            return -1;
+        }
+        return reader.nextInt();
+    }
+
+    private static void readPlaces(JsonPullReader reader, PlacesPayload into) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.nextIsNull()) {
+                reader.nextNull();
+                continue;
+            }
+
+            int id = 0;
+            byte status = SpotStatus.BUSY;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(PLACE_NAMES)) {
+                    case PLACE_ID:
+                        id = reader.nextInt();
+                        break;
+                    case PLACE_STATUS:
+                        status = reader.nextStringIndex(STATUS_VALUES) == 0
+                                ? SpotStatus.FREE : SpotStatus.BUSY;
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            into.add(id, status);
+        }
+        reader.endArray();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.smartparkingclient.core;
+
+/**
+ * Разобранный ответ /places: версия, признак полного списка
+ * и места в виде параллельных массивов (первые count элементов).
+ * Для запроса с ?level / ?offset / ?limit — ещё и положение страницы.
+ * Тот же формат у ответа на /update: места, которых коснулось действие.
+ */
+public final class PlacesPayload {
+
+    public long version = -1;
+    public boolean full = true;
+    // ответ на /update: все изменения между baseVersion и version — из этого ответа
+    public long baseVersion = -1;
+
+    // страница уровня: -1 — сервер не прислал (весь список одним ответом)
+    public int level = -1;
+    public int offset;
+    public int total = -1;          // мест на уровне (во всём списке без ?level)
+    public int nextOffset = -1;     // откуда грузить следующую страницу, -1 — это последняя
+
+    public int count;
+    public int[] ids;
+    public byte[] statuses;
+
+    public PlacesPayload() {
+        this(64);
+    }
+
+    public PlacesPayload(int capacity) {
+        ids = new int[capacity];
+        statuses = new byte[capacity];
+    }
+
+    void add(int id, byte status) {
+        if (count == ids.length) {
+            int capacity = Math.max(16, ids.length * 2);
+            int[] newIds = new int[capacity];
+            byte[] newStatuses = new byte[capacity];
+            System.arraycopy(ids, 0, newIds, 0, count);
+            System.arraycopy(statuses, 0, newStatuses, 0, count);
+            ids = newIds;
+            statuses = newStatuses;
+        }
+        ids[count] = id;
+        statuses[count] = status;
+        count++;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.smartparkingclient.core;
+
+import java.util.Random;
+
+/**
+ * Интервал опроса сервера, подстраивающийся под ответы.
+ *
+ * Изменений нет — интервал растёт в 1.5 раза до maxMs; пришли изменения —
+ * возвращается к minMs; ошибка — пауза удваивается до maxErrorMs. К каждой
+ * паузе добавляется случайный разброс ±20%, чтобы клиенты после сбоя сети
+ * не приходили на сервер одновременно.
+ */
+public final class PollPolicy {
+
+    public static final int CHANGED = 0;
+    public static final int UNCHANGED = 1;
+    public static final int ERROR = 2;
+
+    private static final double GROWTH = 1.5;
+    private static final double JITTER = 0.2;
+
+    private final long minMs;
+    private final long maxMs;
+    private final long maxErrorMs;
+    private final Random random;
+
+    private long intervalMs;
+    private long errorDelayMs;
+
+    public PollPolicy(long minMs, long maxMs, long maxErrorMs, Random random) {
+        if (minMs <= 0 || maxMs < minMs || maxErrorMs < minMs) {
+            throw new IllegalArgumentException("bad poll bounds");
+        }
+        this.minMs = minMs;
+        this.maxMs = maxMs;
+        this.maxErrorMs = maxErrorMs;
+        this.random = random;
+        reset();
+    }
+
+    // Начать заново (экран снова виден, сеть вернулась)
+    public void reset() {
+        intervalMs = minMs;
+        errorDelayMs = minMs;
+    }
+
+    // Пауза до следующего опроса после ответа с результатом outcome
+    public long nextDelay(int outcome) {
+        long base;
+        switch (outcome) {
+            case CHANGED:
+                intervalMs = minMs;
+                errorDelayMs = minMs;
+                base = intervalMs;
+                break;
+            case UNCHANGED:
+                errorDelayMs = minMs;
+                base = intervalMs;
+                intervalMs = Math.min(maxMs, (long) (intervalMs * GROWTH));
+                break;
+            case ERROR:
+                base = errorDelayMs;
+                errorDelayMs = Math.min(maxErrorMs, errorDelayMs * 2);
+                break;
+            default:
+                throw new IllegalArgumentException("outcome: " + outcome);
+        }
+        return jitter(base);
+    }
+
+    private long jitter(long delay) {
+        double factor = 1 + (random.nextDouble() * 2 - 1) * JITTER;
+        return Math.max(1, (long) (delay * factor));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.smartparkingclient.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Компактная двоичная запись ParkingSnapshot для локального кэша.
+ *
+ * Формат: магия "SPS1", версия снимка, число мест, id мест (первый целиком,
+ * дальше разности в varint — при сплошной нумерации это один байт на место)
+ * и статусы по биту на место (1 — занято). Снимок на 20 мест — около 40 байт.
+ */
+public final class SnapshotCodec {
+
+    private static final int MAGIC = 0x53505331; // "SPS1"
+
+    private SnapshotCodec() {
+    }
+
+    public static void write(ParkingSnapshot snapshot, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        int count = snapshot.size();
+
+        data.writeInt(MAGIC);
+        data.writeLong(snapshot.version());
+        data.writeInt(count);
+
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int id = snapshot.idAt(i);
+            if (i == 0) {
+                data.writeInt(id);
+            } else {
+                writeVarint(data, zigzag(id - previous));
+            }
+            previous = id;
+        }
+
+        byte[] bits = new byte[(count + 7) / 8];
+        for (int i = 0; i < count; i++) {
+            if (!snapshot.isFree(i)) bits[i >> 3] |= (byte) (1 << (i & 7));
+        }
+        data.write(bits);
+        data.flush();
+    }
+
+    public static ParkingSnapshot read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+
+        if (data.readInt() != MAGIC) throw new IOException("Not a parking snapshot");
+        long version = data.readLong();
+        int count = data.readInt();
+        if (count < 0) throw new IOException("Bad snapshot size: " + count);
+
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i == 0 ? data.readInt() : ids[i - 1] + unzigzag(readVarint(data));
+        }
+
+        byte[] bits = new byte[(count + 7) / 8];
+        data.readFully(bits);
+        byte[] statuses = new byte[count];
+        for (int i = 0; i < count; i++) {
+            statuses[i] = (bits[i >> 3] & (1 << (i & 7))) != 0 ? SpotStatus.BUSY : SpotStatus.FREE;
+        }
+        return new ParkingSnapshot(ids, statuses, count, version);
+    }
+
+    // ---------- VARINT ----------
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Bad varint in snapshot");
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
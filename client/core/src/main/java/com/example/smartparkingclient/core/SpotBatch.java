@@ -0,0 +1,90 @@
+package com.example.smartparkingclient.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Пачка изменений мест для POST /ingest: шлюз датчиков или массовая операция.
+ *
+ * На одно место хранится последнее изменение. Сервер применяет пачку
+ * целиком или никак — одной новой версией и одной записью состояния.
+ * Отправка — BatchClient.
+ */
+public final class SpotBatch {
+
+    private static final byte NO_EXPECTED = -1;
+
+    private final Map<Integer, byte[]> changes = new LinkedHashMap<>(); // id → {status, expected}
+    private String key;
+
+    // Новый статус места
+    public SpotBatch set(int id, byte status) {
+        return set(id, status, NO_EXPECTED);
+    }
+
+    // Новый статус, только если сейчас место в статусе expected (иначе вся пачка — 409)
+    public SpotBatch set(int id, byte status, byte expected) {
+        changes.put(id, new byte[]{status, expected});
+        return this;
+    }
+
+    // Ключ идемпотентности: повтор той же пачки после обрыва не применится дважды
+    public SpotBatch key(String key) {
+        this.key = key;
+        return this;
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public void clear() {
+        changes.clear();
+        key = null;
+    }
+
+    // {"key": "...", "changes": [{"id": 3, "status": "busy", "expected": "free"}, ...]}
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(32 + changes.size() * 40);
+        sb.append('{');
+        if (key != null) {
+            sb.append("\"key\":");
+            quote(sb, key);
+            sb.append(',');
+        }
+        sb.append("\"changes\":[");
+        Iterator<Map.Entry<Integer, byte[]>> it = changes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, byte[]> change = it.next();
+            byte[] value = change.getValue();
+            sb.append("{\"id\":").append(change.getKey().intValue())
+                    .append(",\"status\":\"").append(SpotStatus.toWire(value[0])).append('"');
+            if (value[1] != NO_EXPECTED) {
+                sb.append(",\"expected\":\"").append(SpotStatus.toWire(value[1])).append('"');
+            }
+            sb.append('}');
+            if (it.hasNext()) sb.append(',');
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static void quote(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
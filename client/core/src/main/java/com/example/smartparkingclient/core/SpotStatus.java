@@ -0,0 +1,25 @@
+package com.example.smartparkingclient.core;
+
+/**
+ * Статус места в компактном виде (один байт вместо строки "free"/"busy").
+ */
+public final class SpotStatus {
+
+    public static final byte FREE = 0;
+    public static final byte BUSY = 1;
+
+    public static final String WIRE_FREE = "free";
+    public static final String WIRE_BUSY = "busy";
+
+    private SpotStatus() {
+    }
+
+    // Всё, что не "free", считаем занятым (старый сервер шлёт "occupied")
+    public static byte fromWire(String status) {
+        return WIRE_FREE.equals(status) ? FREE : BUSY;
+    }
+
+    public static String toWire(byte status) {
+        return status == FREE ? WIRE_FREE : WIRE_BUSY;
+    }
+}
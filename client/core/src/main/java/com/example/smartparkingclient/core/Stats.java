@@ -0,0 +1,45 @@
+package com.example.smartparkingclient.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Статистика парковки из /stats и события "stats":
+ * {"free": 12, "busy": 8, "total": 20, "load": "40%"}
+ */
+public final class Stats {
+
+    private static final byte[][] NAMES = JsonPullReader.names("free", "busy", "total", "load");
+
+    public int free;
+    public int busy;
+    public int total;
+    public String load = "";
+
+    public static Stats parse(InputStream in) throws IOException {
+        Stats stats = new Stats();
+
+        JsonPullReader reader = new JsonPullReader(in, 256);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+                case 0:
+                    stats.free = reader.nextInt();
+                    break;
+                case 1:
+                    stats.busy = reader.nextInt();
+                    break;
+                case 2:
+                    stats.total = reader.nextInt();
+                    break;
+                case 3:
+                    stats.load = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return stats;
+    }
+}
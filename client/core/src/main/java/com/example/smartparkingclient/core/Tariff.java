@@ -0,0 +1,162 @@
+package com.example.smartparkingclient.core;
+
+/**
+ * Тариф одной зоны парковки.
+ *
+ * Цена задаётся в рублях за час, отдельно для дня и ночи. Стоянка оплачивается
+ * шагами (по умолчанию час): начатый шаг оплачивается целиком по ставкам тех
+ * минут, которые он покрывает. Первые graceMinutes минут бесплатны, за каждые
+ * сутки от начала стоянки берётся не больше dailyCap.
+ *
+ * Ставки заранее разложены по минутам суток в префиксные суммы, поэтому
+ * стоимость любого интервала считается за O(1).
+ */
+public final class Tariff {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int NO_CAP = Integer.MAX_VALUE;
+
+    private final int dayRate;
+    private final int nightRate;
+    private final int nightFrom;
+    private final int nightTo;
+    private final int graceMinutes;
+    private final int dailyCap;
+    private final int stepMinutes;
+
+    // prefix[m] — сумма почасовых ставок минут [0, m) за двое суток подряд:
+    // интервал до суток от любой минуты читается без перехода через полночь
+    private final long[] prefix;
+
+    private Tariff(Builder b) {
+        dayRate = b.dayRate;
+        nightRate = b.nightRate;
+        nightFrom = b.nightFrom;
+        nightTo = b.nightTo;
+        graceMinutes = b.graceMinutes;
+        dailyCap = b.dailyCap;
+        stepMinutes = b.stepMinutes;
+
+        prefix = new long[2 * MINUTES_PER_DAY + 1];
+        for (int m = 0; m < 2 * MINUTES_PER_DAY; m++) {
+            prefix[m + 1] = prefix[m] + rateAt(m % MINUTES_PER_DAY);
+        }
+    }
+
+    // Прежний тариф приложения: 50 ₽ за каждый начатый час
+    public static Tariff standard() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Почасовая ставка, действующая в минуту суток minuteOfDay
+    public int rateAt(int minuteOfDay) {
+        boolean night = nightFrom <= nightTo
+                ? minuteOfDay >= nightFrom && minuteOfDay < nightTo
+                : minuteOfDay >= nightFrom || minuteOfDay < nightTo; // через полночь
+        return night ? nightRate : dayRate;
+    }
+
+    public int stepMinutes() {
+        return stepMinutes;
+    }
+
+    // Оплачиваемая длительность: целые шаги, в пределах бесплатных минут — 0
+    public long billedMinutes(long minutes) {
+        if (minutes <= graceMinutes) return 0;
+        return (minutes + stepMinutes - 1) / stepMinutes * stepMinutes; // округление вверх
+    }
+
+    /**
+     * Стоимость стоянки в рублях.
+     *
+     * @param startMinuteOfDay минута суток (местное время), с которой началась стоянка
+     * @param minutes          длительность в целых минутах (не меньше 1)
+     */
+    public int cost(int startMinuteOfDay, long minutes) {
+        long billed = billedMinutes(minutes);
+        if (billed == 0) return 0;
+
+        long days = billed / MINUTES_PER_DAY;
+        int rest = (int) (billed % MINUTES_PER_DAY);
+
+        long dayCost = Math.min(toRubles(prefix[MINUTES_PER_DAY]), dailyCap);
+        long restCost = Math.min(
+                toRubles(prefix[startMinuteOfDay + rest] - prefix[startMinuteOfDay]), dailyCap);
+
+        return (int) Math.min(Integer.MAX_VALUE, days * dayCost + restCost);
+    }
+
+    // Сумма почасовых ставок по минутам → рубли (с округлением до ближайшего)
+    private static long toRubles(long rateMinutes) {
+        return (rateMinutes + 30) / 60;
+    }
+
+    public static final class Builder {
+        private int dayRate = 50;
+        private int nightRate = 50;
+        private int nightFrom = 0;
+        private int nightTo = 0;
+        private int graceMinutes = 0;
+        private int dailyCap = NO_CAP;
+        private int stepMinutes = 60;
+
+        private Builder() {
+        }
+
+        public Builder hourlyRate(int rublesPerHour) {
+            checkNotNegative(rublesPerHour, "hourlyRate");
+            dayRate = rublesPerHour;
+            nightRate = rublesPerHour;
+            return this;
+        }
+
+        // Ночная ставка с fromMinute до toMinute (минуты суток, можно через полночь)
+        public Builder nightRate(int rublesPerHour, int fromMinute, int toMinute) {
+            checkNotNegative(rublesPerHour, "nightRate");
+            checkMinute(fromMinute);
+            checkMinute(toMinute);
+            nightRate = rublesPerHour;
+            nightFrom = fromMinute;
+            nightTo = toMinute;
+            return this;
+        }
+
+        public Builder graceMinutes(int minutes) {
+            checkNotNegative(minutes, "graceMinutes");
+            graceMinutes = minutes;
+            return this;
+        }
+
+        public Builder dailyCap(int rubles) {
+            checkNotNegative(rubles, "dailyCap");
+            dailyCap = rubles;
+            return this;
+        }
+
+        public Builder stepMinutes(int minutes) {
+            if (minutes <= 0 || minutes > MINUTES_PER_DAY) {
+                throw new IllegalArgumentException("stepMinutes: " + minutes);
+            }
+            stepMinutes = minutes;
+            return this;
+        }
+
+        public Tariff build() {
+            return new Tariff(this);
+        }
+
+        private static void checkNotNegative(int value, String name) {
+            if (value < 0) throw new IllegalArgumentException(name + ": " + value);
+        }
+
+        private static void checkMinute(int minute) {
+            if (minute < 0 || minute >= MINUTES_PER_DAY) {
+                throw new IllegalArgumentException("minute of day: " + minute);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.smartparkingclient.core;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Расчёт оплаты стоянки по тарифам зон.
+ *
+ * Длительность считается как раньше: целые минуты, не меньше одной.
+ * Время суток берётся по смещению часового пояса в момент начала стоянки.
+ * Расчёт за O(1) — годится для ежесекундного обновления текущей
+ * стоимости на экране.
+ */
+public final class TariffEngine {
+
+    public static final String DEFAULT_ZONE = "default";
+
+    private final Map<String, Tariff> zones;
+    private final Tariff defaultTariff;
+    private final ZoneRules rules;
+
+    public TariffEngine(Map<String, Tariff> zones, ZoneId timeZone) {
+        this.zones = new HashMap<>(zones);
+        Tariff fallback = this.zones.get(DEFAULT_ZONE);
+        this.defaultTariff = fallback != null ? fallback : Tariff.standard();
+        this.rules = timeZone.getRules();
+    }
+
+    // Один тариф на всю парковку
+    public static TariffEngine of(Tariff tariff, ZoneId timeZone) {
+        Map<String, Tariff> zones = new HashMap<>();
+        zones.put(DEFAULT_ZONE, tariff);
+        return new TariffEngine(zones, timeZone);
+    }
+
+    public Tariff tariff(String zone) {
+        Tariff tariff = zone != null ? zones.get(zone) : null;
+        return tariff != null ? tariff : defaultTariff;
+    }
+
+    // Оплаченные минуты стоянки; начало неизвестно (<= 0) — минимальная стоянка
+    public static long minutes(long startMillis, long endMillis) {
+        if (startMillis <= 0 || endMillis <= startMillis) return 1;
+        return Math.max(1, (endMillis - startMillis) / 60000);
+    }
+
+    // Оплаченная длительность по тарифу зоны (шаги × stepMinutes), в минутах
+    public long billedMinutes(String zone, long startMillis, long endMillis) {
+        return tariff(zone).billedMinutes(minutes(startMillis, endMillis));
+    }
+
+    // Стоимость стоянки в рублях
+    public int cost(String zone, long startMillis, long endMillis) {
+        return tariff(zone).cost(minuteOfDay(startMillis), minutes(startMillis, endMillis));
+    }
+
+    // Минута суток в местном времени
+    public int minuteOfDay(long epochMillis) {
+        long offsetMillis = rules.getOffset(Instant.ofEpochMilli(epochMillis))
+                .getTotalSeconds() * 1000L;
+        long local = Math.floorMod(epochMillis + offsetMillis, 86_400_000L);
+        return (int) (local / 60000);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.smartparkingclient.core;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class FreeSpotIndexTest {
+
+    @Test
+    public void emptyIndex_hasNoFreeSpots() {
+        FreeSpotIndex index = new FreeSpotIndex(0);
+
+        assertEquals(-1, index.first());
+        assertEquals(0, index.count());
+    }
+
+    @Test
+    public void first_followsSetAndClearAcrossWords() {
+        FreeSpotIndex index = new FreeSpotIndex(10_000);
+        index.set(9_999);
+        index.set(4_100);
+
+        assertEquals(4_100, index.first());
+        index.clear(4_100);
+        assertEquals(9_999, index.first());
+        index.clear(9_999);
+        assertEquals(-1, index.first());
+        assertEquals(0, index.count());
+    }
+
+    @Test
+    public void randomUpdates_matchBitSet() {
+        Random random = new Random(17);
+        for (int size : new int[]{1, 63, 64, 65, 4096, 4097, 300_000}) {
+            FreeSpotIndex index = new FreeSpotIndex(size);
+            BitSet reference = new BitSet(size);
+
+            for (int step = 0; step < 5_000; step++) {
+                int spot = random.nextInt(size);
+                if (random.nextBoolean()) {
+                    index.set(spot);
+                    reference.set(spot);
+                } else {
+                    index.clear(spot);
+                    reference.clear(spot);
+                }
+
+                int from = random.nextInt(size + 1);
+                assertEquals(reference.nextSetBit(from) < size ? reference.nextSetBit(from) : -1,
+                        index.next(from));
+                assertEquals(reference.nextSetBit(0), index.first());
+                assertEquals(reference.cardinality(), index.count());
+            }
+        }
+    }
+}
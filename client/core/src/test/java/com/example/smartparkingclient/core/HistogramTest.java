@@ -0,0 +1,65 @@
+package com.example.smartparkingclient.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    public void buckets_coverValuesWithoutGaps() {
+        long[] samples = {0, 1, 15, 16, 17, 31, 32, 100, 1000, 123_456, Long.MAX_VALUE / 2, Long.MAX_VALUE};
+        for (long v : samples) {
+            int bucket = Histogram.bucketOf(v);
+            assertTrue("value " + v, Histogram.upperBound(bucket) >= v);
+            if (bucket > 0) {
+                assertTrue("value " + v, Histogram.upperBound(bucket - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    public void smallValues_areExact() {
+        Histogram h = new Histogram();
+        for (int v = 1; v <= 10; v++) h.record(v);
+
+        assertEquals(10, h.count());
+        assertEquals(5, h.percentile(50));
+        assertEquals(10, h.percentile(100));
+        assertEquals(5.5, h.mean(), 1e-9);
+        assertEquals(10, h.max());
+    }
+
+    @Test
+    public void percentiles_withinRelativeError() {
+        Histogram h = new Histogram();
+        Random random = new Random(3);
+        long[] values = new long[20000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 10); // 1 .. ~22000
+            h.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(values.length * p / 100) - 1];
+            long approx = h.percentile(p);
+            assertTrue("p" + p + ": " + approx + " vs " + exact,
+                    approx >= exact && approx <= exact * 1.13 + 1);
+        }
+    }
+
+    @Test
+    public void empty_andReset() {
+        Histogram h = new Histogram();
+        assertEquals(0, h.percentile(99));
+        h.record(500);
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.max());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.smartparkingclient.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class LevelsTest {
+
+    @Test
+    public void parse_readsLevelsAndTotals() throws IOException {
+        String json = "{\"version\": 9, \"levels\": ["
+                + "{\"level\": 0, \"first_id\": 1, \"count\": 200, \"free\": 150, \"busy\": 50},"
+                + "{\"level\": 1, \"first_id\": 201, \"count\": 100, \"free\": 0, \"busy\": 100, \"name\": \"B\"}]}";
+
+        Levels levels = Levels.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(9, levels.version);
+        assertEquals(2, levels.size());
+        assertEquals(201, levels.get(1).firstId);
+        assertEquals(300, levels.total());
+        assertEquals(150, levels.free());
+        assertEquals(150, levels.busy());
+        assertEquals(50, levels.loadPercent());
+
+        assertEquals(0, levels.levelOf(200));
+        assertEquals(1, levels.levelOf(201));
+        assertEquals(-1, levels.levelOf(301));
+    }
+}
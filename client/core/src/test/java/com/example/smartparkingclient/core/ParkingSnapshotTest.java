@@ -0,0 +1,127 @@
+package com.example.smartparkingclient.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParkingSnapshotTest {
+
+    private static final byte F = SpotStatus.FREE;
+    private static final byte B = SpotStatus.BUSY;
+
+    @Test
+    public void counters_followStatusChanges() {
+        ParkingSnapshot snapshot = new ParkingSnapshot(
+                new int[]{1, 2, 3, 4}, new byte[]{F, B, F, B}, 4, 10);
+
+        assertEquals(2, snapshot.freeCount());
+        assertEquals(2, snapshot.busyCount());
+        assertEquals(50, snapshot.loadPercent());
+
+        assertTrue(snapshot.setStatus(0, B));
+        assertFalse(snapshot.setStatus(0, B));
+        assertEquals(1, snapshot.freeCount());
+        assertEquals(75, snapshot.loadPercent());
+    }
+
+    @Test
+    public void nextFree_skipsBusySpots() {
+        ParkingSnapshot snapshot = new ParkingSnapshot(
+                new int[]{1, 2, 3, 4, 5}, new byte[]{B, B, F, B, F}, 5, 0);
+
+        assertEquals(2, snapshot.nextFree(0));
+        assertEquals(4, snapshot.nextFree(3));
+        assertEquals(-1, snapshot.nextFree(5));
+
+        snapshot.setStatus(2, B);
+        snapshot.setStatus(4, B);
+        assertEquals(-1, snapshot.nextFree(0));
+    }
+
+    @Test
+    public void bestFree_followsStatusChanges() {
+        ParkingSnapshot snapshot = new ParkingSnapshot(
+                new int[]{1, 2, 3, 4}, new byte[]{B, B, F, F}, 4, 1);
+
+        assertEquals(2, snapshot.bestFree());
+        snapshot.setStatus(0, F);
+        assertEquals(0, snapshot.bestFree());
+        snapshot.setStatus(0, B);
+        snapshot.setStatus(2, B);
+        snapshot.setStatus(3, B);
+        assertEquals(-1, snapshot.bestFree());
+    }
+
+    @Test
+    public void indexOf_worksForContiguousAndSparseIds() {
+        ParkingSnapshot contiguous = new ParkingSnapshot(
+                new int[]{1, 2, 3}, new byte[]{F, F, F}, 3, 0);
+        assertEquals(2, contiguous.indexOf(3));
+        assertEquals(-1, contiguous.indexOf(0));
+        assertEquals(-1, contiguous.indexOf(4));
+
+        int[] ids = new int[1000];
+        byte[] statuses = new byte[1000];
+        for (int i = 0; i < ids.length; i++) ids[i] = 101 + i * 7;
+        ParkingSnapshot sparse = new ParkingSnapshot(ids, statuses, ids.length, 0);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, sparse.indexOf(ids[i]));
+        }
+        assertEquals(-1, sparse.indexOf(102));
+    }
+
+    @Test
+    public void applyDelta_returnsChangedIndicesAndVersion() {
+        ParkingSnapshot snapshot = new ParkingSnapshot(
+                new int[]{1, 2, 3}, new byte[]{F, F, F}, 3, 5);
+
+        PlacesPayload delta = new PlacesPayload();
+        delta.version = 7;
+        delta.full = false;
+        delta.add(2, B);
+        delta.add(3, F); // не изменилось
+
+        assertArrayEquals(new int[]{1}, snapshot.applyDelta(delta));
+        assertEquals(7, snapshot.version());
+        assertEquals(2, snapshot.freeCount());
+    }
+
+    @Test
+    public void append_addsPageAndKeepsOlderVersion() {
+        ParkingSnapshot first = new ParkingSnapshot(
+                new int[]{1, 2}, new byte[]{F, B}, 2, 5);
+
+        PlacesPayload page = new PlacesPayload();
+        page.version = 8;
+        page.add(3, F);
+        page.add(4, F);
+
+        ParkingSnapshot joined = first.append(page);
+        assertEquals(4, joined.size());
+        assertEquals(3, joined.freeCount());
+        assertEquals(2, joined.indexOf(3));
+        assertEquals(5, joined.version()); // дельта от 5 обновит и первую страницу
+        assertEquals(2, first.size());      // исходный снимок не тронут
+
+        assertEquals(8, ParkingSnapshot.empty().append(page).version());
+    }
+
+    @Test
+    public void applyDelta_withUnknownSpot_requestsFullReload() {
+        ParkingSnapshot snapshot = new ParkingSnapshot(
+                new int[]{1, 2}, new byte[]{F, F}, 2, 1);
+
+        PlacesPayload delta = new PlacesPayload();
+        delta.version = 2;
+        delta.add(1, B);
+        delta.add(99, B);
+
+        assertNull(snapshot.applyDelta(delta));
+        assertEquals(2, snapshot.freeCount()); // снимок не тронут
+        assertEquals(1, snapshot.version());
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.smartparkingclient.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Потоковый разбор /places должен давать то же, что прежний разбор через org.json.
+ */
+public class PlacesParserTest {
+
+    @Test
+    public void fullResponse_matchesJsonObjectParsing() throws IOException {
+        String json = "{\"version\": 7, \"full\": true, \"places\": ["
+                + "{\"id\": 1, \"status\": \"free\"}, "
+                + "{\"id\": 2, \"status\": \"busy\"}, "
+                + "{\"id\": 3, \"status\": \"free\"}]}";
+
+        assertMatchesReference(json);
+    }
+
+    @Test
+    public void deltaResponse_keepsVersionAndFlag() throws IOException {
+        PlacesPayload payload = parse("{\"full\":false,\"places\":[{\"id\":17,\"status\":\"busy\"}],\"version\":42}");
+
+        assertEquals(42, payload.version);
+        assertFalse(payload.full);
+        assertEquals(1, payload.count);
+        assertEquals(17, payload.ids[0]);
+        assertEquals(SpotStatus.BUSY, payload.statuses[0]);
+    }
+
+    @Test
+    public void legacyResponseWithoutVersion_isFull() throws IOException {
+        PlacesPayload payload = parse("{\"places\": [{\"id\": 1, \"status\": \"free\"}]}");
+
+        assertEquals(-1, payload.version);
+        assertTrue(payload.full);
+        assertEquals(1, payload.count);
+    }
+
+    @Test
+    public void unknownFieldsAndStatuses_areHandledLikeBefore() throws IOException {
+        String json = "{\n  \"meta\": {\"lot\": \"Парковка №1\", \"tags\": [1, 2.5, null, true]},\n"
+                + "  \"places\": [\n"
+                + "    {\"status\": \"occupied\", \"id\": 5, \"sensor\": {\"ok\": false}},\n"
+                + "    {\"id\": 6, \"status\": \"fr\\u0065e\"},\n"
+                + "    {\"id\": 7, \"status\": \"freeze\"},\n"
+                + "    {\"id\": 8, \"status\": \"free\", \"note\": \"\\\"quoted\\\" \\\\ text\"}\n"
+                + "  ],\n  \"version\": 3\n}";
+
+        assertMatchesReference(json);
+    }
+
+    @Test
+    public void largeLot_matchesJsonObjectParsing() throws IOException {
+        for (int size : new int[]{20, 1000, 10000}) {
+            assertMatchesReference(samplePayload(size));
+        }
+    }
+
+    @Test
+    public void reusedPayload_isReset() throws IOException {
+        PlacesPayload payload = new PlacesPayload(2);
+        PlacesParser.parse(stream(samplePayload(100)), payload);
+        PlacesParser.parse(stream("{\"version\":1,\"full\":false,\"places\":[]}"), payload);
+
+        assertEquals(0, payload.count);
+        assertFalse(payload.full);
+        assertEquals(1, payload.version);
+    }
+
+    @Test
+    public void levelPage_readsPagePosition() throws IOException {
+        PlacesPayload payload = parse("{\"version\": 4, \"full\": true, \"level\": 1, "
+                + "\"offset\": 100, \"total\": 250, \"next_offset\": 200, "
+                + "\"places\": [{\"id\": 301, \"status\": \"free\"}]}");
+
+        assertEquals(1, payload.level);
+        assertEquals(100, payload.offset);
+        assertEquals(250, payload.total);
+        assertEquals(200, payload.nextOffset);
+        assertEquals(301, payload.ids[0]);
+
+        // последняя страница: next_offset = null; без ?level поля страницы по умолчанию
+        PlacesPayload last = parse("{\"version\": 4, \"offset\": 200, \"next_offset\": null, \"places\": []}");
+        assertEquals(-1, last.level);
+        assertEquals(-1, last.nextOffset);
+        assertEquals(-1, last.total);
+    }
+
+    @Test
+    public void updateResponse_readsBaseVersionAndSkipsResults() throws IOException {
+        PlacesPayload payload = parse("{\"success\": true, \"results\": [{\"key\": \"a\", \"success\": true}], "
+                + "\"version\": 12, \"base_version\": 10, \"full\": false, "
+                + "\"places\": [{\"id\": 3, \"status\": \"busy\"}, {\"id\": 4, \"status\": \"free\"}]}");
+
+        assertEquals(10, payload.baseVersion);
+        assertEquals(12, payload.version);
+        assertFalse(payload.full);
+        assertEquals(2, payload.count);
+        assertEquals(-1, parse("{\"version\": 1, \"places\": []}").baseVersion);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedBody_fails() throws IOException {
+        parse("{\"version\": 1, \"places\": [{\"id\": 1, \"stat");
+    }
+
+    // ---------- помощники ----------
+
+    private static void assertMatchesReference(String json) throws IOException {
+        // эталон: разбор как в ParkingActivity до потокового парсера
+        JSONObject obj = new JSONObject(json);
+        JSONArray places = obj.getJSONArray("places");
+        int[] expectedIds = new int[places.length()];
+        byte[] expectedStatuses = new byte[places.length()];
+        for (int i = 0; i < places.length(); i++) {
+            JSONObject place = places.optJSONObject(i);
+            expectedIds[i] = place.optInt("id");
+            expectedStatuses[i] = SpotStatus.fromWire(place.optString("status"));
+        }
+
+        PlacesPayload payload = parse(json);
+
+        assertEquals(obj.optLong("version", -1), payload.version);
+        assertEquals(obj.optBoolean("full", true), payload.full);
+        assertEquals(places.length(), payload.count);
+        assertArrayEquals(expectedIds, slice(payload.ids, payload.count));
+        assertArrayEquals(expectedStatuses, slice(payload.statuses, payload.count));
+    }
+
+    static String samplePayload(int size) {
+        StringBuilder sb = new StringBuilder("{\"version\": ").append(size * 3)
+                .append(", \"full\": true, \"places\": [");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append("{\"id\": ").append(i + 1)
+                    .append(", \"status\": \"").append(i % 3 == 0 ? "busy" : "free").append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static PlacesPayload parse(String json) throws IOException {
+        return PlacesParser.parse(stream(json));
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int[] slice(int[] array, int count) {
+        int[] result = new int[count];
+        System.arraycopy(array, 0, result, 0, count);
+        return result;
+    }
+
+    private static byte[] slice(byte[] array, int count) {
+        byte[] result = new byte[count];
+        System.arraycopy(array, 0, result, 0, count);
+        return result;
+    }
+}
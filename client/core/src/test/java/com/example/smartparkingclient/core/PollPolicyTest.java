@@ -0,0 +1,61 @@
+package com.example.smartparkingclient.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PollPolicyTest {
+
+    // без разброса: nextDouble() == 0.5 даёт множитель ровно 1
+    private static final Random NO_JITTER = new Random() {
+        @Override
+        public double nextDouble() {
+            return 0.5;
+        }
+    };
+
+    @Test
+    public void unchanged_stretchesUpToMax() {
+        PollPolicy policy = new PollPolicy(1000, 3000, 60000, NO_JITTER);
+
+        assertEquals(1000, policy.nextDelay(PollPolicy.UNCHANGED));
+        assertEquals(1500, policy.nextDelay(PollPolicy.UNCHANGED));
+        assertEquals(2250, policy.nextDelay(PollPolicy.UNCHANGED));
+        assertEquals(3000, policy.nextDelay(PollPolicy.UNCHANGED));
+        assertEquals(3000, policy.nextDelay(PollPolicy.UNCHANGED));
+
+        assertEquals(1000, policy.nextDelay(PollPolicy.CHANGED));
+    }
+
+    @Test
+    public void errors_backOffExponentially() {
+        PollPolicy policy = new PollPolicy(1000, 5000, 8000, NO_JITTER);
+
+        assertEquals(1000, policy.nextDelay(PollPolicy.ERROR));
+        assertEquals(2000, policy.nextDelay(PollPolicy.ERROR));
+        assertEquals(4000, policy.nextDelay(PollPolicy.ERROR));
+        assertEquals(8000, policy.nextDelay(PollPolicy.ERROR));
+        assertEquals(8000, policy.nextDelay(PollPolicy.ERROR));
+
+        // успешный ответ сбрасывает паузу после ошибок
+        assertEquals(1000, policy.nextDelay(PollPolicy.UNCHANGED));
+        assertEquals(1000, policy.nextDelay(PollPolicy.ERROR));
+    }
+
+    @Test
+    public void jitter_staysWithinTwentyPercent() {
+        PollPolicy policy = new PollPolicy(10000, 10000, 10000, new Random(1));
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.nextDelay(PollPolicy.UNCHANGED);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue(min >= 8000 && max <= 12000);
+        assertTrue("jitter too narrow: " + min + ".." + max, max - min > 2000);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.smartparkingclient.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SnapshotCodecTest {
+
+    private static final byte F = SpotStatus.FREE;
+    private static final byte B = SpotStatus.BUSY;
+
+    @Test
+    public void roundTrip_keepsIdsStatusesAndVersion() throws IOException {
+        ParkingSnapshot source = new ParkingSnapshot(
+                new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9}, new byte[]{F, B, F, B, B, F, F, F, B}, 9, 42);
+
+        byte[] bytes = encode(source);
+        ParkingSnapshot copy = SnapshotCodec.read(new ByteArrayInputStream(bytes));
+
+        assertSame(source, copy);
+        assertEquals(42, copy.version());
+        assertEquals(source.freeCount(), copy.freeCount());
+    }
+
+    @Test
+    public void roundTrip_sparseAndDescendingIds() throws IOException {
+        int[] ids = {500, 3, 100000, -7, 12, 13, 14};
+        byte[] statuses = {B, F, B, F, F, B, F};
+        ParkingSnapshot source = new ParkingSnapshot(ids, statuses, ids.length, 7);
+
+        assertSame(source, SnapshotCodec.read(new ByteArrayInputStream(encode(source))));
+    }
+
+    @Test
+    public void contiguousIds_takeAboutTwoBytesPerSpot() throws IOException {
+        int count = 10000;
+        int[] ids = new int[count];
+        byte[] statuses = new byte[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i + 1;
+            statuses[i] = i % 3 == 0 ? B : F;
+        }
+        byte[] bytes = encode(new ParkingSnapshot(ids, statuses, count, 1));
+
+        assertTrue("size " + bytes.length, bytes.length < count * 2);
+    }
+
+    @Test
+    public void emptySnapshot_roundTrips() throws IOException {
+        ParkingSnapshot copy = SnapshotCodec.read(
+                new ByteArrayInputStream(encode(ParkingSnapshot.empty())));
+        assertEquals(0, copy.size());
+        assertEquals(-1, copy.version());
+    }
+
+    @Test
+    public void damagedData_throws() throws IOException {
+        byte[] bytes = encode(new ParkingSnapshot(new int[]{1, 2, 3}, new byte[]{F, F, B}, 3, 1));
+
+        expectFailure(Arrays.copyOf(bytes, bytes.length - 1));
+        bytes[0] = 'X';
+        expectFailure(bytes);
+    }
+
+    private static void expectFailure(byte[] bytes) {
+        try {
+            SnapshotCodec.read(new ByteArrayInputStream(bytes));
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    private static byte[] encode(ParkingSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotCodec.write(snapshot, out);
+        return out.toByteArray();
+    }
+
+    private static void assertSame(ParkingSnapshot expected, ParkingSnapshot actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.idAt(i), actual.idAt(i));
+            assertEquals(expected.statusAt(i), actual.statusAt(i));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.smartparkingclient.core;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpotBatchTest {
+
+    @Test
+    public void toJson_keepsLastChangePerSpot() {
+        SpotBatch batch = new SpotBatch()
+                .key("gw-1 \"north\"")
+                .set(3, SpotStatus.BUSY)
+                .set(7, SpotStatus.FREE, SpotStatus.BUSY)
+                .set(3, SpotStatus.FREE);
+
+        JSONObject json = new JSONObject(batch.toJson());
+        JSONArray changes = json.getJSONArray("changes");
+
+        assertEquals("gw-1 \"north\"", json.getString("key"));
+        assertEquals(2, changes.length());
+        assertEquals(3, changes.getJSONObject(0).getInt("id"));
+        assertEquals("free", changes.getJSONObject(0).getString("status"));
+        assertFalse(changes.getJSONObject(0).has("expected"));
+        assertEquals("busy", changes.getJSONObject(1).getString("expected"));
+    }
+
+    @Test
+    public void send_postsBatchAndReadsConflict() throws IOException {
+        AtomicReference<String> received = new AtomicReference<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ingest", exchange -> {
+            received.set(read(exchange.getRequestBody()));
+            byte[] reply = ("{\"success\": false, \"message\": \"Conflict\", \"version\": 5, "
+                    + "\"base_version\": 5, \"full\": false, "
+                    + "\"places\": [{\"id\": 7, \"status\": \"free\"}]}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(409, reply.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(reply);
+            }
+        });
+        server.start();
+        try {
+            BatchClient client = new BatchClient("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+            BatchClient.Result result = client.send(
+                    new SpotBatch().set(7, SpotStatus.FREE, SpotStatus.BUSY));
+
+            assertTrue(result.isConflict());
+            assertFalse(result.isChanged());
+            assertEquals(7, result.places.ids[0]);
+            assertEquals(7, new JSONObject(received.get())
+                    .getJSONArray("changes").getJSONObject(0).getInt("id"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.smartparkingclient.core;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class StatsTest {
+
+    @Test
+    public void parse_matchesJsonObjectParsing() throws IOException {
+        String json = "{\"busy\": 8, \"free\": 12, \"load\": \"40%\", \"total\": 20}";
+
+        JSONObject obj = new JSONObject(json);
+        Stats stats = Stats.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(obj.getInt("free"), stats.free);
+        assertEquals(obj.getInt("busy"), stats.busy);
+        assertEquals(obj.getInt("total"), stats.total);
+        assertEquals(obj.getString("load"), stats.load);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.smartparkingclient.core;
+
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TariffTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    public void standard_matchesLegacyHourlyBilling() {
+        Tariff tariff = Tariff.standard();
+        for (long minutes = 1; minutes <= 3 * 24 * 60; minutes += 7) {
+            int hours = (int) ((minutes + 59) / 60);
+            assertEquals("minutes " + minutes, hours * 50, tariff.cost(0, minutes));
+            assertEquals("minutes " + minutes, hours * 50, tariff.cost(1234, minutes));
+        }
+    }
+
+    @Test
+    public void engine_minutesFollowLegacyRules() {
+        assertEquals(1, TariffEngine.minutes(0, 5 * MINUTE));            // начало неизвестно
+        assertEquals(1, TariffEngine.minutes(10 * MINUTE, 10 * MINUTE + 5000));
+        assertEquals(61, TariffEngine.minutes(MINUTE, 62 * MINUTE + 59_000));
+
+        TariffEngine engine = TariffEngine.of(Tariff.standard(), ZoneOffset.UTC);
+        assertEquals(50, engine.cost("any", 0, 0));
+        assertEquals(100, engine.cost(null, MINUTE, 62 * MINUTE));
+    }
+
+    @Test
+    public void nightRate_wrapsAroundMidnight() {
+        Tariff tariff = Tariff.builder()
+                .hourlyRate(60)
+                .nightRate(30, 22 * 60, 7 * 60)
+                .build();
+
+        assertEquals(30, tariff.rateAt(23 * 60));
+        assertEquals(30, tariff.rateAt(3 * 60));
+        assertEquals(60, tariff.rateAt(7 * 60));
+        assertEquals(60, tariff.rateAt(12 * 60));
+
+        // 21:30–22:30: полчаса по дню и полчаса по ночи
+        assertEquals(45, tariff.cost(21 * 60 + 30, 60));
+        // 23:00 + 10 часов: 8 ночных + 2 дневных
+        assertEquals(8 * 30 + 2 * 60, tariff.cost(23 * 60, 10 * 60));
+    }
+
+    @Test
+    public void graceAndDailyCap() {
+        Tariff tariff = Tariff.builder()
+                .hourlyRate(50)
+                .graceMinutes(15)
+                .dailyCap(300)
+                .build();
+
+        assertEquals(0, tariff.cost(600, 15));
+        assertEquals(50, tariff.cost(600, 16));
+        assertEquals(300, tariff.cost(600, 10 * 60));
+        // двое суток и ещё 2 часа
+        assertEquals(2 * 300 + 100, tariff.cost(600, 2 * 24 * 60 + 120));
+    }
+
+    @Test
+    public void billedMinutes_followStepsAndGrace() {
+        Tariff tariff = Tariff.builder()
+                .graceMinutes(10)
+                .stepMinutes(15)
+                .build();
+
+        assertEquals(0, tariff.billedMinutes(10));
+        assertEquals(15, tariff.billedMinutes(11));
+        assertEquals(15, tariff.billedMinutes(15));
+        assertEquals(75, tariff.billedMinutes(61));
+
+        assertEquals(120, Tariff.standard().billedMinutes(61));
+        TariffEngine engine = TariffEngine.of(tariff, ZoneOffset.UTC);
+        assertEquals(30, engine.billedMinutes(null, MINUTE, 20 * MINUTE));
+    }
+
+    @Test
+    public void cost_matchesMinuteByMinuteSum() {
+        Tariff tariff = Tariff.builder()
+                .hourlyRate(80)
+                .nightRate(20, 23 * 60, 6 * 60 + 30)
+                .stepMinutes(15)
+                .build();
+
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            int start = random.nextInt(Tariff.MINUTES_PER_DAY);
+            long minutes = 1 + random.nextInt(3 * Tariff.MINUTES_PER_DAY);
+
+            long billed = (minutes + 14) / 15 * 15;
+            long fullDays = billed / Tariff.MINUTES_PER_DAY;
+            long daySum = 0;
+            for (int m = 0; m < Tariff.MINUTES_PER_DAY; m++) daySum += tariff.rateAt(m);
+            long restSum = 0;
+            for (long m = 0; m < billed % Tariff.MINUTES_PER_DAY; m++) {
+                restSum += tariff.rateAt((int) ((start + m) % Tariff.MINUTES_PER_DAY));
+            }
+            long expected = fullDays * ((daySum + 30) / 60) + (restSum + 30) / 60;
+
+            assertEquals("start " + start + ", minutes " + minutes, expected, tariff.cost(start, minutes));
+        }
+    }
+
+    @Test
+    public void zones_fallBackToDefault() {
+        Map<String, Tariff> zones = new HashMap<>();
+        zones.put(TariffEngine.DEFAULT_ZONE, Tariff.builder().hourlyRate(40).build());
+        zones.put("vip", Tariff.builder().hourlyRate(120).build());
+        TariffEngine engine = new TariffEngine(zones, ZoneOffset.ofHours(3));
+
+        long start = 1_700_000_000_000L;
+        assertEquals(120, engine.cost("vip", start, start + 30 * MINUTE));
+        assertEquals(40, engine.cost("unknown", start, start + 30 * MINUTE));
+        // 1_700_000_000_000 = 2023-11-14 22:13:20 UTC → 01:13 по UTC+3
+        assertEquals(60 + 13, engine.minuteOfDay(start));
+    }
+}
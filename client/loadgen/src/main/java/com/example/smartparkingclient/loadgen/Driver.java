@@ -0,0 +1,146 @@
+package com.example.smartparkingclient.loadgen;
+
+import com.example.smartparkingclient.core.ParkingSnapshot;
+import com.example.smartparkingclient.core.PlacesParser;
+import com.example.smartparkingclient.core.PlacesPayload;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Один водитель с телефоном — повторяет путь через приложение:
+ * главный экран (/stats), схема уровня (/places: первая страница, потом дельты),
+ * заезд с проверкой "место ещё свободно" (/update, expected = free),
+ * стоянка, выезд. Между экранами — пауза на раздумья.
+ */
+final class Driver implements Runnable {
+
+    private final int number;
+    private final LoadConfig config;
+    private final ServerApi api;
+    private final Outcomes outcomes;
+    private final int levelCount;
+    private final long deadline;
+
+    private ParkingSnapshot snapshot;
+    private int level;
+
+    Driver(int number, LoadConfig config, ServerApi api, Outcomes outcomes,
+           int levelCount, long deadline) {
+        this.number = number;
+        this.config = config;
+        this.api = api;
+        this.outcomes = outcomes;
+        this.levelCount = levelCount;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // водители приходят не все в одну миллисекунду
+        if (!pause(random.nextLong(config.thinkMs + 1))) return;
+
+        while (System.nanoTime() < deadline) {
+            api.get("/stats", "/stats");
+            if (!pause(config.thinkMs)) return;
+
+            int next = levelCount > 1 ? random.nextInt(levelCount) : 0;
+            // дельта ?since= считается по местам уровня — снимок другого уровня не годится
+            if (next != level) snapshot = null;
+            level = next;
+            loadPlaces();
+            if (snapshot == null || !pause(config.thinkMs)) continue;
+
+            int index = pickSpot(random);
+            if (index < 0) {
+                outcomes.noFreeSpot.increment();
+                continue;
+            }
+            park(snapshot.idAt(index), random);
+        }
+    }
+
+    // Как ParkingRepository: первая страница уровня, дальше дельта по загруженным местам
+    private void loadPlaces() {
+        ServerApi.Reply reply;
+        boolean delta = snapshot != null && snapshot.version() >= 0 && snapshot.size() > 0;
+        if (delta) {
+            reply = api.get("/places?since", "/places?level=" + level + "&since=" + snapshot.version()
+                    + "&offset=0&limit=" + snapshot.size());
+        } else {
+            reply = api.get("/places", "/places?level=" + level + "&offset=0&limit=" + config.pageSize);
+        }
+        if (reply == null || reply.code != 200) return;
+
+        try {
+            PlacesPayload places = PlacesParser.parse(new ByteArrayInputStream(reply.body));
+            if (places.full) {
+                snapshot = ParkingSnapshot.of(places);
+            } else if (snapshot.applyDelta(places) == null) {
+                snapshot = null; // место вне снимка — в следующий раз полный список
+            }
+        } catch (IOException e) {
+            snapshot = null;
+        }
+    }
+
+    // Половина водителей жмёт "лучшее место", остальные выбирают свободное наугад
+    private int pickSpot(ThreadLocalRandom random) {
+        if (random.nextBoolean()) return snapshot.bestFree();
+        int index = snapshot.nextFree(random.nextInt(Math.max(1, snapshot.size())));
+        return index >= 0 ? index : snapshot.bestFree();
+    }
+
+    private void park(int id, ThreadLocalRandom random) {
+        outcomes.enterAttempts.increment();
+        ServerApi.Reply reply = api.post("/update", "/update", action(id, "busy", "free"));
+        if (reply == null) return;
+        if (reply.code == 409) {
+            outcomes.enterConflicts.increment();
+            snapshot = null; // схема устарела — как приложение, перечитаем
+            return;
+        }
+        if (reply.code != 200) return;
+
+        outcomes.sessions.increment();
+        Integer other = outcomes.owners.putIfAbsent(id, number);
+        if (other != null) {
+            outcomes.doubleBookings.increment();
+            return; // место числится за другим — его выезд и освободит
+        }
+
+        long dwell = config.dwellMs / 2 + random.nextLong(config.dwellMs + 1);
+        pause(Math.min(dwell, remainingMs()));
+        // выезжаем и при остановке прогона, иначе место так и останется занятым
+        boolean interrupted = Thread.interrupted();
+
+        // снимаем отметку до выезда: после ответа место может сразу занять другой
+        outcomes.owners.remove(id, number);
+        ServerApi.Reply exit = api.post("/update", "/update", action(id, "free", null));
+        if (exit != null && exit.code == 200) outcomes.exits.increment();
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private static String action(int id, String status, String expected) {
+        return "{\"key\":\"" + UUID.randomUUID() + "\",\"id\":" + id + ",\"status\":\"" + status + "\""
+                + (expected != null ? ",\"expected\":\"" + expected + "\"" : "") + "}";
+    }
+
+    private long remainingMs() {
+        return Math.max(0, (deadline - System.nanoTime()) / 1_000_000);
+    }
+
+    // false — прогон остановлен
+    private boolean pause(long ms) {
+        try {
+            Thread.sleep(ms);
+            return !Thread.currentThread().isInterrupted();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.smartparkingclient.loadgen;
+
+/**
+ * Параметры прогона из командной строки: --name value.
+ */
+final class LoadConfig {
+
+    String url = "http://localhost:8000";
+    int drivers = 100;          // телефоны: главный экран, схема, заезд/выезд
+    int sensors = 0;            // шлюзы датчиков, шлют пачки на /ingest
+    int durationSec = 60;
+    long thinkMs = 2_000;       // пауза водителя между экранами
+    long dwellMs = 10_000;      // сколько машина стоит на месте (±50%)
+    int pageSize = 200;         // страница /places, как у приложения
+    int batchSize = 20;         // изменений в одной пачке датчиков
+    long sensorPeriodMs = 1_000;
+
+    static LoadConfig parse(String[] args) {
+        LoadConfig config = new LoadConfig();
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Нет значения для " + args[i]);
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--url":
+                    config.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    break;
+                case "--drivers":
+                    config.drivers = Integer.parseInt(value);
+                    break;
+                case "--sensors":
+                    config.sensors = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    config.durationSec = Integer.parseInt(value);
+                    break;
+                case "--think-ms":
+                    config.thinkMs = Long.parseLong(value);
+                    break;
+                case "--dwell-ms":
+                    config.dwellMs = Long.parseLong(value);
+                    break;
+                case "--page":
+                    config.pageSize = Integer.parseInt(value);
+                    break;
+                case "--batch":
+                    config.batchSize = Integer.parseInt(value);
+                    break;
+                case "--sensor-period-ms":
+                    config.sensorPeriodMs = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестный параметр " + args[i]);
+            }
+        }
+        return config;
+    }
+
+    static String usage() {
+        return "Параметры: --url http://localhost:8000 --drivers 100 --sensors 0 --duration 60\n"
+                + "           --think-ms 2000 --dwell-ms 10000 --page 200 --batch 20 --sensor-period-ms 1000";
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.smartparkingclient.loadgen;
+
+import com.example.smartparkingclient.core.Histogram;
+import com.example.smartparkingclient.core.Levels;
+import com.example.smartparkingclient.core.PlacesParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Нагрузочный прогон сервера парковки.
+ *
+ * Каждый водитель и каждый шлюз датчиков — свой виртуальный поток с обычным
+ * блокирующим кодом; тысячи одновременных сценариев не требуют тысяч потоков ОС.
+ * По окончании печатает пропускную способность, p50/p99/p999 задержки
+ * по эндпоинтам и долю конфликтов при заезде.
+ */
+public final class LoadGen {
+
+    private LoadGen() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadConfig.usage());
+            System.exit(2);
+            return;
+        }
+
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            ServerApi api = new ServerApi(config.url, threads);
+
+            // раскладка парковки: уровни для водителей, число мест для датчиков
+            Levels levels = loadLevels(api);
+            int levelCount = levels != null ? levels.size() : 1;
+            int totalPlaces = levels != null ? levels.total() : countPlaces(api);
+            if (totalPlaces <= 0) {
+                System.err.println("Сервер " + config.url + " не отвечает");
+                System.exit(1);
+                return;
+            }
+            System.out.printf(Locale.ROOT, "%s: %d мест, уровней %d; водителей %d, шлюзов %d, %d с%n",
+                    config.url, totalPlaces, levelCount, config.drivers, config.sensors, config.durationSec);
+
+            Outcomes outcomes = new Outcomes();
+            long started = System.nanoTime();
+            long deadline = started + config.durationSec * 1_000_000_000L;
+            List<Future<?>> scenarios = new ArrayList<>();
+            for (int i = 0; i < config.drivers; i++) {
+                scenarios.add(threads.submit(new Driver(i, config, api, outcomes, levelCount, deadline)));
+            }
+            for (int i = 0; i < config.sensors; i++) {
+                scenarios.add(threads.submit(new Sensor(config, api, outcomes, totalPlaces, deadline)));
+            }
+
+            // сценарии заканчиваются сами по deadline; пул не останавливаем раньше —
+            // на нём же работает HttpClient
+            for (Future<?> scenario : scenarios) {
+                scenario.get();
+            }
+            report(api, outcomes, (System.nanoTime() - started) / 1e9);
+        }
+    }
+
+    private static Levels loadLevels(ServerApi api) {
+        ServerApi.Reply reply = api.get("/levels", "/levels");
+        if (reply == null || reply.code != 200) return null; // сервер без уровней
+        try {
+            return Levels.parse(new ByteArrayInputStream(reply.body));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static int countPlaces(ServerApi api) {
+        ServerApi.Reply reply = api.get("/places", "/places");
+        if (reply == null || reply.code != 200) return 0;
+        try {
+            return PlacesParser.parse(new ByteArrayInputStream(reply.body)).count;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // ---------- ОТЧЁТ ----------
+    private static void report(ServerApi api, Outcomes outcomes, double seconds) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-14s %9s %7s %9s %9s %9s %9s %9s%n",
+                "эндпоинт", "запросов", "ошибок", "rps", "p50 мс", "p99 мс", "p999 мс", "max мс");
+
+        long totalCalls = 0;
+        for (Map.Entry<String, ServerApi.Endpoint> entry : api.endpoints().entrySet()) {
+            Histogram latency = entry.getValue().latencyUs;
+            long calls = latency.count();
+            totalCalls += calls;
+            System.out.printf(Locale.ROOT, "%-14s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), calls, entry.getValue().errors.sum(), calls / seconds,
+                    ms(latency.percentile(50)), ms(latency.percentile(99)),
+                    ms(latency.percentile(99.9)), ms(latency.max()));
+        }
+        System.out.printf(Locale.ROOT, "%-14s %9d %7s %9.1f%n", "всего", totalCalls, "", totalCalls / seconds);
+
+        long attempts = outcomes.enterAttempts.sum();
+        long conflicts = outcomes.enterConflicts.sum();
+        System.out.println();
+        System.out.printf(Locale.ROOT,
+                "Заезды: попыток %d, принято %d, конфликтов %d (%.2f%%), двойных бронирований %d%n",
+                attempts, outcomes.sessions.sum(), conflicts,
+                attempts == 0 ? 0.0 : conflicts * 100.0 / attempts, outcomes.doubleBookings.sum());
+        System.out.printf(Locale.ROOT, "Выезды: %d; свободного места не нашлось: %d раз%n",
+                outcomes.exits.sum(), outcomes.noFreeSpot.sum());
+        if (outcomes.ingestBatches.sum() + outcomes.ingestConflicts.sum() > 0) {
+            System.out.printf(Locale.ROOT, "Датчики: пачек принято %d, отклонено по конфликту %d%n",
+                    outcomes.ingestBatches.sum(), outcomes.ingestConflicts.sum());
+        }
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.smartparkingclient.loadgen;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Итоги сценариев (не HTTP-уровня): заезды, конфликты, двойные бронирования.
+ */
+final class Outcomes {
+
+    final LongAdder enterAttempts = new LongAdder();
+    final LongAdder enterConflicts = new LongAdder();   // 409: место успели занять
+    final LongAdder sessions = new LongAdder();         // заезд принят
+    final LongAdder doubleBookings = new LongAdder();   // принят заезд на место другого водителя
+    final LongAdder exits = new LongAdder();
+    final LongAdder noFreeSpot = new LongAdder();       // на схеме не нашлось свободного места
+    final LongAdder ingestBatches = new LongAdder();
+    final LongAdder ingestConflicts = new LongAdder();
+
+    // место → номер водителя, который на нём стоит (по ответам сервера)
+    final ConcurrentMap<Integer, Integer> owners = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,87 @@
+package com.example.smartparkingclient.loadgen;
+
+import com.example.smartparkingclient.core.SpotBatch;
+import com.example.smartparkingclient.core.SpotStatus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Шлюз датчиков: раз в период шлёт на /ingest пачку показаний. Датчики
+ * изображают машины без приложения: заезд — только на свободное место
+ * (expected = free), выезд — только своих же машин. Места водителей
+ * прогона датчики не освобождают, иначе двойные бронирования считались бы ложно.
+ * Пачка атомарна: одно занятое место — и вся пачка отклоняется (409).
+ */
+final class Sensor implements Runnable {
+
+    // повторы пачки без ответа (тот же ключ — сервер применит её не больше раза)
+    private static final int INGEST_RETRIES = 3;
+
+    private final LoadConfig config;
+    private final ServerApi api;
+    private final Outcomes outcomes;
+    private final int totalPlaces;
+    private final long deadline;
+
+    Sensor(LoadConfig config, ServerApi api, Outcomes outcomes, int totalPlaces, long deadline) {
+        this.config = config;
+        this.api = api;
+        this.outcomes = outcomes;
+        this.totalPlaces = totalPlaces;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SpotBatch batch = new SpotBatch();
+        Set<Integer> parked = new HashSet<>();  // места, занятые машинами этого шлюза
+        List<Integer> arrived = new ArrayList<>();
+        List<Integer> left = new ArrayList<>();
+        try {
+            Thread.sleep(random.nextLong(config.sensorPeriodMs + 1));
+            while (System.nanoTime() < deadline) {
+                batch.clear();
+                batch.key(UUID.randomUUID().toString());
+                arrived.clear();
+                left.clear();
+                for (int i = 0; i < config.batchSize; i++) {
+                    int id = 1 + random.nextInt(totalPlaces);
+                    if (arrived.contains(id) || left.contains(id)) continue;
+                    if (parked.contains(id)) {
+                        batch.set(id, SpotStatus.FREE, SpotStatus.BUSY);
+                        left.add(id);
+                    } else {
+                        batch.set(id, SpotStatus.BUSY, SpotStatus.FREE);
+                        arrived.add(id);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    String body = batch.toJson();
+                    ServerApi.Reply reply = api.post("/ingest", "/ingest", body);
+                    // ответа нет, а сервер мог пачку применить: без повтора её места
+                    // не попали бы в parked, и датчики никогда бы их не освободили
+                    for (int retry = 0; reply == null && retry < INGEST_RETRIES
+                            && System.nanoTime() < deadline; retry++) {
+                        Thread.sleep(config.sensorPeriodMs);
+                        reply = api.post("/ingest", "/ingest", body);
+                    }
+                    if (reply != null && reply.code == 200) {
+                        outcomes.ingestBatches.increment();
+                        parked.addAll(arrived);
+                        parked.removeAll(left);
+                    }
+                    if (reply != null && reply.code == 409) outcomes.ingestConflicts.increment();
+                }
+                Thread.sleep(config.sensorPeriodMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
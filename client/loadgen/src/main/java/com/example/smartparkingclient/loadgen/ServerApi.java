@@ -0,0 +1,94 @@
+package com.example.smartparkingclient.loadgen;
+
+import com.example.smartparkingclient.core.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP к серверу парковки с замером задержек по эндпоинтам.
+ *
+ * Вызовы блокирующие — их делают виртуальные потоки, так что тысяча
+ * ожидающих ответа водителей не держит тысячу потоков ОС.
+ */
+final class ServerApi {
+
+    // Ответ сервера; null вместо Reply — ошибка соединения
+    static final class Reply {
+        final int code;
+        final byte[] body;
+
+        Reply(int code, byte[] body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+
+    static final class Endpoint {
+        final Histogram latencyUs = new Histogram();
+        final LongAdder errors = new LongAdder();   // нет соединения или 5xx
+    }
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final HttpClient http;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    ServerApi(String baseUrl, Executor executor) {
+        this.baseUrl = baseUrl;
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // Flask отвечает по HTTP/1.1
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    // name — под каким именем считать задержку (например, "/places?since")
+    Reply get(String name, String pathAndQuery) {
+        return send(name, HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                .timeout(TIMEOUT)
+                .GET()
+                .build());
+    }
+
+    Reply post(String name, String path, String json) {
+        return send(name, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+    }
+
+    private Reply send(String name, HttpRequest request) {
+        Endpoint endpoint = endpoints.computeIfAbsent(name, n -> new Endpoint());
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            endpoint.latencyUs.record((System.nanoTime() - start) / 1_000);
+            if (response.statusCode() >= 500) endpoint.errors.increment();
+            return new Reply(response.statusCode(), response.body());
+
+        } catch (IOException e) {
+            endpoint.errors.increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // По имени, для отчёта
+    Map<String, Endpoint> endpoints() {
+        return new TreeMap<>(endpoints);
+    }
+}
@@ -0,0 +1,16 @@
+import os
+from datetime import datetime
+
+from async_log import AsyncLog
+
+# Лог действий app.py и фонового датчика (background_task.py) — один писатель
+# на logs/server.log. Отдельный модуль: при запуске `python app.py` импорт
+# `from app import ...` загрузил бы app.py второй раз, со вторым писателем
+# и его собственной ротацией того же файла
+LOG_FILE = os.path.join(os.path.dirname(__file__), 'logs', 'server.log')
+
+server_log = AsyncLog(LOG_FILE)
+
+def log_action(message):
+    """Записывает действия в лог (в фоне, запрос диск не ждёт)"""
+    server_log.write(f"[{datetime.now()}] {message}")
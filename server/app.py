@@ -1,32 +1,17 @@
 from flask import Flask, jsonify, request
-import json
-import os
-from datetime import datetime
 
-app = Flask(__name__)
-
-# Пути к данным и логам
-DATA_FILE = os.path.join(os.path.dirname(__file__), 'data', 'parking.json')
-LOG_FILE = os.path.join(os.path.dirname(__file__), 'logs', 'server.log')
+import spots
+from action_log import log_action
 
-# Создаём файлы, если их нет
-os.makedirs(os.path.dirname(DATA_FILE), exist_ok=True)
-os.makedirs(os.path.dirname(LOG_FILE), exist_ok=True)
-
-if not os.path.exists(DATA_FILE):
-    with open(DATA_FILE, 'w') as f:
-        json.dump({"1": "free", "2": "occupied", "3": "free"}, f)
+app = Flask(__name__)
 
-def log_action(message):
-    """Записывает действия в лог"""
-    with open(LOG_FILE, 'a') as log:
-        log.write(f"[{datetime.now()}] {message}\n")
+# Состояние мест — в памяти, на диске снимок + журнал (см. spots.py),
+# лог — logs/server.log (см. action_log.py)
 
 @app.route('/status', methods=['GET'])
 def get_status():
     """Возвращает текущее состояние парковочных мест"""
-    with open(DATA_FILE, 'r') as f:
-        data = json.load(f)
+    data = spots.get_all()
     log_action("Получен запрос /status")
     return jsonify(data)
 
@@ -37,19 +22,31 @@ def update_status():
     place_id = str(req.get('place_id'))
     status = req.get('status')
 
-    with open(DATA_FILE, 'r') as f:
-        data = json.load(f)
+    missing, data = spots.update({place_id: status})
 
-    if place_id in data:
-        data[place_id] = status
-        with open(DATA_FILE, 'w') as f:
-            json.dump(data, f)
+    if not missing:
         log_action(f"Место {place_id} обновлено: {status}")
         return jsonify({"success": True, "data": data})
     else:
         log_action(f"Ошибка обновления — место {place_id} не найдено")
         return jsonify({"success": False, "error": "Place not found"}), 404
 
+@app.route('/update/batch', methods=['POST'])
+def update_status_batch():
+    """Обновляет сразу несколько мест: всё или ничего, одна запись в журнал"""
+    req = request.get_json(silent=True) or {}
+    changes = req.get('changes')
+    if not isinstance(changes, list) or not all(isinstance(c, dict) for c in changes):
+        return jsonify({"success": False, "error": "Invalid batch"}), 400
+
+    missing, data = spots.update({str(c.get('place_id')): c.get('status') for c in changes})
+    if missing:
+        log_action(f"Ошибка пакетного обновления — места не найдены: {', '.join(missing)}")
+        return jsonify({"success": False, "error": "Place not found", "missing": missing}), 404
+
+    log_action(f"Пакетное обновление: {len(changes)} мест")
+    return jsonify({"success": True, "data": data})
+
 from background_task import start_background_thread
 start_background_thread()
 
@@ -0,0 +1,114 @@
+import atexit
+import os
+import queue
+import threading
+import time
+
+# -----------------------------------------
+# Лог в файл из фонового потока
+#
+# Обработчик запроса только кладёт строку в очередь — диск его не ждёт.
+# Поток-писатель забирает строки пачками и пишет их одной записью.
+# Очередь ограничена: если диск не успевает, новые строки отбрасываются
+# и считаются (dropped); в лог потом уходит строка о том, сколько потеряно.
+# Файл ротируется по размеру и по времени: server.log → server.log.1 → ...
+# -----------------------------------------
+
+
+class AsyncLog:
+    def __init__(self, path, max_bytes=5 * 1024 * 1024, rotate_interval=24 * 3600,
+                 backups=5, queue_size=10000, batch_size=500, flush_interval=0.5):
+        self.path = path
+        self.max_bytes = max_bytes              # размер файла до ротации
+        self.rotate_interval = rotate_interval  # секунд до ротации
+        self.backups = backups                  # сколько старых файлов хранить
+        self.batch_size = batch_size
+        self.flush_interval = flush_interval    # секунд ожидания новых строк
+
+        self.dropped = 0       # строк потеряно за всё время
+        self._reported = 0     # о скольких из них уже написано в лог
+        self._drop_lock = threading.Lock()
+        self._queue = queue.Queue(maxsize=queue_size)
+        self._file = None
+        self._opened_at = 0.0
+
+        self._thread = threading.Thread(target=self._run, daemon=True)
+        self._thread.start()
+        atexit.register(self.close)
+
+    def write(self, line):
+        """Кладёт строку в очередь; никогда не блокирует"""
+        try:
+            self._queue.put_nowait(line)
+        except queue.Full:
+            with self._drop_lock:
+                self.dropped += 1
+
+    def close(self):
+        """Дописывает всё, что в очереди (вызывается при выходе)"""
+        try:
+            self._queue.put(None, timeout=1)
+        except queue.Full:
+            return
+        self._thread.join(timeout=5)
+
+    # ---------- ПОТОК-ПИСАТЕЛЬ ----------
+    def _run(self):
+        while True:
+            try:
+                lines = [self._queue.get(timeout=self.flush_interval)]
+            except queue.Empty:
+                lines = []
+            while lines and len(lines) < self.batch_size:
+                try:
+                    lines.append(self._queue.get_nowait())
+                except queue.Empty:
+                    break
+
+            stop = None in lines
+            lines = [line for line in lines if line is not None]
+
+            with self._drop_lock:
+                lost = self.dropped - self._reported
+                self._reported = self.dropped
+            if lost:
+                lines.append(f"[log] dropped {lost} lines: queue full")
+
+            if lines:
+                try:
+                    self._write_lines(lines)
+                except OSError:
+                    pass  # диск недоступен — запросы от этого падать не должны
+            if stop:
+                break
+
+        if self._file:
+            self._file.close()
+
+    def _write_lines(self, lines):
+        if self._file is None:
+            self._open()
+        elif (self._file.tell() >= self.max_bytes
+              or time.time() - self._opened_at >= self.rotate_interval):
+            self._rotate()
+        self._file.write("".join(line + "\n" for line in lines))
+        self._file.flush()
+
+    def _open(self):
+        directory = os.path.dirname(self.path)
+        if directory:
+            os.makedirs(directory, exist_ok=True)
+        self._file = open(self.path, "a", encoding="utf-8")
+        self._opened_at = time.time()
+
+    def _rotate(self):
+        self._file.close()
+        for n in range(self.backups - 1, 0, -1):
+            older = f"{self.path}.{n}"
+            if os.path.exists(older):
+                os.replace(older, f"{self.path}.{n + 1}")
+        if self.backups > 0:
+            os.replace(self.path, f"{self.path}.1")
+        else:
+            os.remove(self.path)
+        self._open()
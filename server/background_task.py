@@ -1,7 +1,7 @@
 import threading
 import time
 from sensors import simulate_sensor_change
-from app import log_action
+from action_log import log_action
 
 def background_sensor_loop(interval=60):
     """Фоновый поток: имитирует срабатывание датчиков каждые interval секунд"""
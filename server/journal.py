@@ -0,0 +1,113 @@
+import json
+import os
+import threading
+import time
+
+# -----------------------------------------
+# Журнал изменений + снимок состояния
+#
+# Рабочее состояние живёт в памяти. Каждое изменение дописывается
+# строкой JSON в конец журнала (дёшево: одна короткая запись вместо
+# перезаписи всего файла). Время от времени журнал сворачивается:
+# состояние целиком пишется в снимок (через временный файл и os.replace,
+# чтобы снимок никогда не был недописанным), а журнал очищается.
+#
+# При старте: читаем снимок (load_snapshot) и докатываем записи журнала
+# поверх него (replay).
+# Недописанная последняя строка (сервер упал посреди записи) отбрасывается.
+# Записи должны быть идемпотентными («место N стало таким-то»): если сервер
+# упал между заменой снимка и очисткой журнала, журнал докатится повторно
+# и ничего не испортит.
+# -----------------------------------------
+
+# PARKING_FSYNC=1 — fsync после каждой записи: переживает и отключение
+# питания, но каждая запись ждёт диск. По умолчанию только flush —
+# изменения переживают падение процесса.
+FSYNC = os.environ.get("PARKING_FSYNC") == "1"
+
+
+class Journal:
+    def __init__(self, snapshot_path, journal_path, compact_every=1000, compact_interval=60.0):
+        self.snapshot_path = snapshot_path
+        self.journal_path = journal_path
+        self.compact_every = compact_every        # записей в журнале до сворачивания
+        self.compact_interval = compact_interval  # секунд между проверками в фоне
+        self.entries = 0                          # записей в журнале после снимка
+        self._file = None
+
+    # ---------- ВОССТАНОВЛЕНИЕ ----------
+    def load_snapshot(self, default):
+        """Последний снимок или default, если снимка ещё нет."""
+        if not os.path.exists(self.snapshot_path):
+            return default
+        with open(self.snapshot_path, "r", encoding="utf-8") as f:
+            return json.load(f)
+
+    def replay(self, apply_entry):
+        """Вызывает apply_entry(entry) для каждой записи журнала по порядку
+        и открывает журнал для дозаписи."""
+        good_size = 0
+        if os.path.exists(self.journal_path):
+            with open(self.journal_path, "rb") as f:
+                for line in f:
+                    try:
+                        entry = json.loads(line)
+                    except ValueError:
+                        break  # хвост недописан — дальше записей нет
+                    apply_entry(entry)
+                    good_size += len(line)
+                    self.entries += 1
+
+        # срезаем недописанный хвост, чтобы новые записи шли с целой строки
+        self._file = open(self.journal_path, "ab")
+        if self._file.tell() != good_size:
+            self._file.truncate(good_size)
+            self._file.seek(good_size)
+
+    # ---------- ЗАПИСЬ ----------
+    def append(self, entries):
+        """Дописывает записи одной операцией записи.
+
+        Вызывается под блокировкой состояния, в том же порядке, что и изменения.
+        Возвращает True, когда журнал пора свернуть."""
+        if not entries:
+            return False
+        data = b"".join(json.dumps(entry, ensure_ascii=False).encode("utf-8") + b"\n"
+                        for entry in entries)
+        self._file.write(data)
+        self._file.flush()
+        if FSYNC:
+            os.fsync(self._file.fileno())
+        self.entries += len(entries)
+        return self.entries >= self.compact_every
+
+    def compact(self, state):
+        """Пишет снимок state и очищает журнал; вызывается под блокировкой состояния."""
+        if self.entries == 0 and os.path.exists(self.snapshot_path):
+            return
+
+        tmp_path = self.snapshot_path + ".tmp"
+        with open(tmp_path, "w", encoding="utf-8") as f:
+            json.dump(state, f, ensure_ascii=False)
+            f.flush()
+            os.fsync(f.fileno())
+        os.replace(tmp_path, self.snapshot_path)
+
+        # всё из журнала уже в снимке
+        self._file.truncate(0)
+        self._file.seek(0)
+        if FSYNC:
+            os.fsync(self._file.fileno())
+        self.entries = 0
+
+    def start_compactor(self, lock, get_state):
+        """Фоновый поток: раз в compact_interval секунд сворачивает журнал,
+        если в нём что-то есть. Так снимок не отстаёт надолго даже при редких изменениях."""
+        def loop():
+            while True:
+                time.sleep(self.compact_interval)
+                with lock:
+                    if self.entries:
+                        self.compact(get_state())
+
+        threading.Thread(target=loop, daemon=True).start()
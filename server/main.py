@@ -1,117 +1,573 @@
-from flask import Flask, jsonify, request
+from flask import Flask, Response, jsonify, request
 from flask_cors import CORS
+from collections import OrderedDict
 from datetime import datetime
+import bisect
 import json
 import os
+import queue
+import threading
+import uuid
+
+from async_log import AsyncLog
+from journal import Journal
 
 
 app = Flask(__name__)
 CORS(app)
 
 # -----------------------------------------
-# Загрузка состояния парковки из JSON
+# Уровни парковки
+# PARKING_LEVELS="200,200,150" — число мест на каждом уровне
+# (по умолчанию один уровень на 20 мест). id мест сквозные:
+# уровень 0 — 1..200, уровень 1 — 201..400 и т.д.
 # -----------------------------------------
-def load_parking_state():
-    if os.path.exists("parking_state.json"):
-        with open("parking_state.json", "r", encoding="utf-8") as f:
-            return json.load(f)
-    else:
-        return None
+LEVEL_SIZES = [int(n) for n in os.environ.get("PARKING_LEVELS", "20").split(",") if n.strip()]
+LEVEL_STARTS = [sum(LEVEL_SIZES[:i]) for i in range(len(LEVEL_SIZES))]  # индекс первого места
+TOTAL_PLACES = sum(LEVEL_SIZES)
+
+
+def level_of(index: int) -> int:
+    return bisect.bisect_right(LEVEL_STARTS, index) - 1
+
 
 # -----------------------------------------
+# Состояние парковки: в памяти, на диске — снимок + журнал изменений
+# parking_state.json  — снимок {"version": 12, "places": [...], "keys": [...]}
+# parking_journal.log — изменения после снимка, по строке JSON на место:
+#                       {"v": 13, "id": 3, "status": "busy"},
+#                       и ключи применённых действий: {"key": "..."}
 # -----------------------------------------
-# Инициализация списка мест (из файла или дефолт)
-# -----------------------------------------
-loaded_state = load_parking_state()
+journal = Journal("parking_state.json", "parking_journal.log")
 
-if loaded_state:
+loaded_state = journal.load_snapshot([])
+if isinstance(loaded_state, list):
+    # снимок старого формата — просто список мест
     parking_places = loaded_state
 else:
-    parking_places = [{"status": "free"} for _ in range(20)]
+    parking_places = loaded_state["places"]
+parking_places = parking_places[:TOTAL_PLACES]
+
+# схема уровней могла вырасти — новые места свободны
+parking_places += [{"status": "free", "version": 0}
+                   for _ in range(TOTAL_PLACES - len(parking_places))]
+
+# Версия состояния парковки: растёт на каждое изменение места.
+# У каждого места хранится версия, на которой оно менялось последний раз.
+state_version = max((place.get("version", 0) for place in parking_places), default=0)
+if isinstance(loaded_state, dict):
+    state_version = max(state_version, loaded_state.get("version", 0))
+state_lock = threading.Lock()
+
+# Ключи идемпотентности уже применённых действий (последние 1000):
+# клиент повторяет пачку после обрыва связи, второй раз она не применяется.
+# Ключи переживают перезапуск (снимок + журнал): иначе повтор заезда,
+# ответ на который потерялся, получил бы 409 от собственной машины
+processed_keys = OrderedDict()
+PROCESSED_KEYS_LIMIT = 1000
+
+
+def remember_key(key):
+    if key is None:
+        return
+    processed_keys[key] = True
+    if len(processed_keys) > PROCESSED_KEYS_LIMIT:
+        processed_keys.popitem(last=False)
+
+
+if isinstance(loaded_state, dict):
+    for key in loaded_state.get("keys", []):
+        remember_key(key)
+
+
+def replay_entry(entry):
+    global state_version
+    if "key" in entry:
+        remember_key(entry["key"])
+        return
+    if entry["id"] <= TOTAL_PLACES:  # места за пределами схемы уровней отброшены
+        parking_places[entry["id"] - 1] = {"status": entry["status"], "version": entry["v"]}
+    state_version = max(state_version, entry["v"])
+
+
+journal.replay(replay_entry)
+
+
+# -----------------------------------------
+# Счётчики свободных мест: всего и по уровням.
+# Меняются вместе со статусом места (set_place_status), поэтому /stats
+# и /levels не перебирают места. Полный пересчёт — только при старте
+# и в проверке check_counters()
+# -----------------------------------------
+def count_free_by_level() -> list:
+    return [sum(1 for place in parking_places[start:start + size] if place["status"] == "free")
+            for start, size in zip(LEVEL_STARTS, LEVEL_SIZES)]
+
+
+level_free = count_free_by_level()
+free_total = sum(level_free)
+
+
+def set_place_status(index: int, new_status: str, version: int) -> str:
+    """Единственное место, где меняется статус; вызывается под state_lock.
+    Возвращает старый статус."""
+    global free_total
+
+    place = parking_places[index]
+    old_status = place["status"]
+    place["status"] = new_status
+    place["version"] = version
+
+    delta = (new_status == "free") - (old_status == "free")
+    if delta:
+        free_total += delta
+        level_free[level_of(index)] += delta
+    return old_status
+
+
+def check_counters() -> list:
+    """Сверяет счётчики с полным пересчётом; вызывается под state_lock.
+    Возвращает список расхождений (пустой — всё сходится)."""
+    errors = []
+    actual = count_free_by_level()
+    for level, (counted, real) in enumerate(zip(level_free, actual)):
+        if counted != real:
+            errors.append(f"level {level}: free {counted}, actual {real}")
+    if free_total != sum(actual):
+        errors.append(f"total: free {free_total}, actual {sum(actual)}")
+    return errors
 
 
 # -----------------------------------------
-# Сохранение состояния парковки в JSON
+# Сохранение изменений: вызывается под state_lock после изменения мест.
+# В журнал уходит по короткой строке на место; весь список мест
+# пишется только при сворачивании журнала
 # -----------------------------------------
-def save_parking_state():
-    with open("parking_state.json", "w", encoding="utf-8") as f:
-        json.dump(parking_places, f, indent=4, ensure_ascii=False)
+def save_parking_state(place_ids, keys=()):
+    entries = [{"v": parking_places[place_id - 1]["version"], "id": place_id,
+                "status": parking_places[place_id - 1]["status"]}
+               for place_id in place_ids]
+    entries += [{"key": key} for key in keys if key is not None]
+    if journal.append(entries):
+        journal.compact(snapshot_state())
+
+
+def snapshot_state() -> dict:
+    return {"version": state_version, "places": parking_places, "keys": list(processed_keys)}
+
+
+# раз в минуту журнал сворачивается в снимок, даже если изменений мало
+journal.start_compactor(state_lock, snapshot_state)
+
+# -----------------------------------------
+# ETag по версии состояния: пока парковка не менялась, ответы /places,
+# /levels и /stats по тому же адресу одинаковы. Клиент присылает
+# If-None-Match с прошлым ETag и получает 304 без тела.
+# BOOT_ID — на случай, если сервер начал с чистого состояния
+# и версии пошли заново
+# -----------------------------------------
+BOOT_ID = uuid.uuid4().hex[:8]
+
+
+def state_etag() -> str:
+    return f"{BOOT_ID}-{state_version}"
+
+
+def not_modified(tag: str):
+    """Ответ 304, если у клиента уже есть ответ с этим ETag, иначе None"""
+    if not request.if_none_match.contains_weak(tag):
+        return None
+    response = Response(status=304)
+    response.set_etag(tag)
+    return response
+
+
+def with_etag(response, tag: str):
+    response.set_etag(tag)
+    return response
+
 
 # -----------------------------------------
 # Вернуть список мест
+# ?since=<version>  — только места, изменённые после этой версии
+# ?level=<n>        — только места уровня n
+# ?offset=&limit=   — страница внутри уровня (или всей парковки); limit >= 1
+# If-None-Match     — 304 без тела, если версия не менялась (см. state_etag)
 # -----------------------------------------
 @app.get("/places")
 def get_places():
-    return jsonify({
-        "places": [
-            {"id": i + 1, "status": place["status"]}
-            for i, place in enumerate(parking_places)
-        ]
-    })
+    since = request.args.get("since", type=int)
+    level = request.args.get("level", type=int)
+    offset = max(0, request.args.get("offset", 0, type=int) or 0)
+    limit = request.args.get("limit", type=int)
+
+    if level is None:
+        start, end = 0, TOTAL_PLACES
+    elif 0 <= level < len(LEVEL_SIZES):
+        start = LEVEL_STARTS[level]
+        end = start + LEVEL_SIZES[level]
+    else:
+        return jsonify({"success": False, "message": "Invalid level"}), 400
+
+    total = end - start
+    if limit is None:
+        limit = total
+    elif limit <= 0:
+        # пустая страница с next_offset == offset зациклила бы клиента
+        return jsonify({"success": False, "message": "Invalid limit"}), 400
+    page_start = min(end, start + offset)
+    page_end = min(end, page_start + limit)
+
+    # версия, ETag и статусы — одним срезом под блокировкой: иначе ответ мог
+    # бы нести новую версию со старым статусом места, и дельты его бы не вернули
+    with state_lock:
+        tag = state_etag()
+        cached = not_modified(tag)
+        if cached:
+            return cached
+
+        # полный список, если клиент без снимка или его версия не с этого сервера
+        full = since is None or since < 0 or since > state_version
+
+        response = {
+            "version": state_version,
+            "full": full,
+            "offset": offset,
+            "total": total,
+            "next_offset": offset + (page_end - page_start) if page_start < page_end < end else None,
+            "places": [
+                {"id": i + 1, "status": parking_places[i]["status"]}
+                for i in range(page_start, page_end)
+                if full or parking_places[i].get("version", 0) > since
+            ]
+        }
+    if level is not None:
+        response["level"] = level
+    return with_etag(jsonify(response), tag)
+
+
+# -----------------------------------------
+# Уровни парковки со счётчиками мест
+# -----------------------------------------
+@app.get("/levels")
+def get_levels():
+    # один ETag под блокировкой — и для проверки If-None-Match, и для ответа
+    with state_lock:
+        tag = state_etag()
+        cached = not_modified(tag)
+        if cached:
+            return cached
+
+        levels = [{
+            "level": level,
+            "first_id": start + 1,
+            "count": size,
+            "free": level_free[level],
+            "busy": size - level_free[level],
+        } for level, (start, size) in enumerate(zip(LEVEL_STARTS, LEVEL_SIZES))]
+        version = state_version
+    return with_etag(jsonify({"version": version, "levels": levels}), tag)
 
 
 # -----------------------------------------
 # Обновление статуса места
 # -----------------------------------------
+
+def validate_action(data):
+    if not isinstance(data, dict):
+        return "Invalid action"
+    place_id = data.get("id")      # id от 1 до TOTAL_PLACES
+    if not isinstance(place_id, int) or not (1 <= place_id <= TOTAL_PLACES):
+        return "Invalid id"
+    if data.get("status") not in ("free", "busy"):
+        return "Invalid status"
+    # expected — статус, который клиент видел перед действием (compare-and-set)
+    if data.get("expected") not in (None, "free", "busy"):
+        return "Invalid expected status"
+    return None
+
+
+def is_conflict(data) -> bool:
+    """Место уже не в том статусе, который ожидал клиент; вызывается под state_lock."""
+    expected = data.get("expected")
+    return expected is not None and parking_places[data["id"] - 1]["status"] != expected
+
+
+def action_response(base_version: int, place_ids, **fields) -> dict:
+    """Ответ на действие в формате дельты /places: места, которых оно коснулось.
+
+    Вызывается под state_lock, поэтому все версии от base_version до version —
+    изменения этого запроса. Клиент со снимком в этом диапазоне применяет
+    ответ как дельту, без повторного запроса /places.
+    """
+    return dict(fields,
+                version=state_version,
+                base_version=base_version,
+                full=False,
+                places=[{"id": place_id, "status": parking_places[place_id - 1]["status"]}
+                        for place_id in dict.fromkeys(place_ids)])
+
+
+def apply_action(place_id: int, new_status: str) -> str:
+    """Меняет статус места; вызывается под state_lock. Возвращает старый статус."""
+    global state_version
+
+    index = place_id - 1           # переводим id → индекс
+    # сначала статус, потом версия — как в /ingest
+    old_status = set_place_status(index, new_status, state_version + 1)
+    state_version += 1
+
+    # события рассылаем под блокировкой, чтобы версии шли по порядку
+    publish_event("place", {"id": place_id, "status": new_status,
+                            "level": level_of(index), "version": state_version})
+    return old_status
+
+
 @app.post("/update")
 def update_place():
     data = request.get_json()
 
-    place_id = data.get("id")      # id от 1 до 20
-    new_status = data.get("status")
-
     # Проверки
-    if place_id is None or not (1 <= place_id <= 20):
-        return jsonify({"success": False, "message": "Invalid id"}), 400
-    if new_status not in ("free", "busy"):
-        return jsonify({"success": False, "message": "Invalid status"}), 400
+    error = validate_action(data)
+    if error:
+        return jsonify({"success": False, "message": error}), 400
 
-    index = place_id - 1           # переводим id → индекс
+    place_id = data["id"]
+    new_status = data["status"]
+    key = data.get("key")
+
+    with state_lock:
+        base_version = state_version
+        if key is not None and key in processed_keys:
+            return jsonify(action_response(base_version, [place_id],
+                                           success=True, message="Already applied"))
 
-    old_status = parking_places[index]["status"]
-    parking_places[index]["status"] = new_status
+        # место успел занять (освободить) кто-то другой — ничего не меняем
+        if is_conflict(data):
+            return jsonify(action_response(base_version, [place_id],
+                                           success=False, message="Conflict")), 409
 
-    save_parking_state()  # 💾 Сохраняем новое состояние в JSON
+        old_status = apply_action(place_id, new_status)
+        remember_key(key)
+        save_parking_state([place_id], [key])  # 💾 В журнал — одна строка (и ключ)
+        publish_event("stats", compute_stats())
+        response = action_response(base_version, [place_id],
+                                   success=True, message="Status updated")
 
     log_action(f"Place {place_id}: {old_status} -> {new_status}")
 
-    return jsonify({"success": True, "message": "Status updated"})
+    return jsonify(response)
+
+
+# -----------------------------------------
+# Пачка действий из очереди клиента
+# {"actions": [{"key": "...", "id": 3, "status": "busy", "expected": "free"}, ...]}
+# Применяются по порядку, в журнал пишутся одной записью на пачку.
+# В ответе кроме результатов — затронутые места в формате дельты /places
+# -----------------------------------------
+@app.post("/update/batch")
+def update_batch():
+    data = request.get_json(silent=True)
+    actions = data.get("actions") if isinstance(data, dict) else None
+    if not isinstance(actions, list):
+        return jsonify({"success": False, "message": "Invalid batch"}), 400
+
+    results = []
+    changes = []
+    touched = []
+    applied_keys = []
+
+    with state_lock:
+        base_version = state_version
+        for action in actions:
+            key = action.get("key") if isinstance(action, dict) else None
+            error = validate_action(action)
+            if error:
+                results.append({"key": key, "success": False, "message": error})
+                continue
+            touched.append(action["id"])
+            if key is not None and key in processed_keys:
+                results.append({"key": key, "success": True, "message": "Already applied"})
+                continue
+            if is_conflict(action):
+                results.append({"key": key, "success": False, "conflict": True,
+                                "message": "Conflict"})
+                continue
+
+            old_status = apply_action(action["id"], action["status"])
+            remember_key(key)
+            changes.append((action["id"], old_status, action["status"]))
+            applied_keys.append(key)
+            results.append({"key": key, "success": True, "message": "Status updated"})
 
+        if changes:
+            save_parking_state([place_id for place_id, _, _ in changes], applied_keys)
+            publish_event("stats", compute_stats())
+        response = action_response(base_version, touched, success=True, results=results)
+
+    for place_id, old_status, new_status in changes:
+        log_action(f"Place {place_id}: {old_status} -> {new_status} (batch)")
+
+    return jsonify(response)
 
 
 # -----------------------------------------
-# Логирование в файл
+# Пакетный приём изменений от шлюзов датчиков
+# {"key": "...", "changes": [{"id": 3, "status": "busy"}, {"id": 7, "status": "free", "expected": "busy"}]}
+# Пачка применяется целиком или никак: одна новая версия на все места,
+# одна запись в журнал, одно событие "places" для live-клиентов
 # -----------------------------------------
+MAX_INGEST_CHANGES = 5000
+
+
+@app.post("/ingest")
+def ingest():
+    global state_version
+
+    data = request.get_json(silent=True)
+    changes = data.get("changes") if isinstance(data, dict) else None
+    if not isinstance(changes, list) or len(changes) > MAX_INGEST_CHANGES:
+        return jsonify({"success": False, "message": "Invalid batch"}), 400
+
+    for i, change in enumerate(changes):
+        error = validate_action(change)
+        if error:
+            return jsonify({"success": False, "message": error, "index": i}), 400
+
+    # одно место несколько раз — действует последнее показание
+    final = {change["id"]: change for change in changes}
+    key = data.get("key")
+
+    with state_lock:
+        base_version = state_version
+        if key is not None and key in processed_keys:
+            return jsonify(action_response(base_version, final,
+                                           success=True, message="Already applied", applied=0))
+
+        conflicts = [place_id for place_id, change in final.items() if is_conflict(change)]
+        if conflicts:
+            return jsonify(action_response(base_version, conflicts,
+                                           success=False, message="Conflict", applied=0)), 409
+
+        changed = [(place_id, parking_places[place_id - 1]["status"], change["status"])
+                   for place_id, change in final.items()
+                   if parking_places[place_id - 1]["status"] != change["status"]]
+        if changed:
+            # сначала статусы, потом версия: state_version не опережает статусы мест
+            version = state_version + 1
+            for place_id, _, new_status in changed:
+                set_place_status(place_id - 1, new_status, version)
+            state_version = version
+            # пачка без изменений ключ в журнале не требует: её повтор тоже ничего не изменит
+            save_parking_state([place_id for place_id, _, _ in changed], [key])
+
+            publish_event("places", {
+                "version": state_version,
+                "base_version": base_version,
+                "places": [{"id": place_id, "status": new_status,
+                            "level": level_of(place_id - 1)}
+                           for place_id, _, new_status in changed],
+            })
+            publish_event("stats", compute_stats())
+        remember_key(key)
+        response = action_response(base_version, final, success=True,
+                                   message="Status updated", applied=len(changed))
+
+    for place_id, old_status, new_status in changed:
+        log_action(f"Place {place_id}: {old_status} -> {new_status} (ingest)")
+
+    return jsonify(response)
+
+
+# -----------------------------------------
+# Логирование в файл: фоновый поток, ротация по размеру и времени (async_log.py)
+# -----------------------------------------
+server_log = AsyncLog("server_log.txt")
+
+
 def log_action(message: str):
     timestamp = datetime.now().strftime("%Y-%m-%d %H:%M:%S")
-    with open("server_log.txt", "a", encoding="utf-8") as f:
-        f.write(f"[{timestamp}] {message}\n")
+    server_log.write(f"[{timestamp}] {message}")
 
 
 # -----------------------------------------
-# Запуск сервера
+# Live-обновления (Server-Sent Events)
+# Каждый подписчик получает свою очередь событий
 # -----------------------------------------
-@app.get("/stats")
-def get_stats():
-    free = 0
-    busy = 0
+subscribers = []
+subscribers_lock = threading.Lock()
+
+
+def format_event(event: str, data: dict) -> str:
+    return (f"id: {state_version}\n"
+            f"event: {event}\n"
+            f"data: {json.dumps(data, ensure_ascii=False)}\n\n")
+
+
+def publish_event(event: str, data: dict):
+    message = format_event(event, data)
+    with subscribers_lock:
+        for q in subscribers:
+            try:
+                q.put_nowait(message)
+            except queue.Full:
+                pass  # медленный клиент — пропустит событие и догонит через /places?since
 
-    for place in parking_places:
-        if place["status"] == "free":
-            free += 1
-        else:
-            busy += 1
 
-    total = len(parking_places)
-    load = int(busy / total * 100)  # процент занятых мест
+@app.get("/events")
+def events():
+    q = queue.Queue(maxsize=100)
+    with subscribers_lock:
+        subscribers.append(q)
 
-    return jsonify({
+    def stream():
+        try:
+            # при подключении сразу отдаём текущую статистику
+            yield "retry: 2000\n\n"
+            yield format_event("stats", compute_stats())
+            while True:
+                try:
+                    yield q.get(timeout=15)
+                except queue.Empty:
+                    yield ": ping\n\n"  # держим соединение живым
+        finally:
+            with subscribers_lock:
+                subscribers.remove(q)
+
+    return Response(stream(), mimetype="text/event-stream",
+                    headers={"Cache-Control": "no-cache"})
+
+
+# -----------------------------------------
+# Статистика парковки
+# -----------------------------------------
+def compute_stats() -> dict:
+    """По счётчикам, без перебора мест"""
+    free = free_total
+    total = TOTAL_PLACES
+    busy = total - free
+    load = int(busy / total * 100) if total else 0  # процент занятых мест
+
+    return {
         "free": free,
         "busy": busy,
         "total": total,
         "load": f"{load}%"
-    })
+    }
+
 
+@app.get("/stats")
+def get_stats():
+    tag = state_etag()
+    cached = not_modified(tag)
+    if cached:
+        return cached
+    return with_etag(jsonify(compute_stats()), tag)
+
+
+# -----------------------------------------
+# Запуск сервера
+# -----------------------------------------
 if __name__ == "__main__":
     print("🚗 SmartParkingServer running at http://localhost:8000")
-    app.run(host="0.0.0.0", port=8000)
+    app.run(host="0.0.0.0", port=8000, threaded=True)
@@ -0,0 +1,45 @@
+import os
+import threading
+
+from journal import Journal
+
+# Состояние мест для app.py и датчиков (sensors.py): словарь id → статус
+# в памяти, на диске — снимок data/parking.json и журнал изменений после него.
+# PARKING_DATA_DIR — другая папка данных (тесты)
+DATA_DIR = os.environ.get('PARKING_DATA_DIR') or os.path.join(os.path.dirname(__file__), 'data')
+os.makedirs(DATA_DIR, exist_ok=True)
+
+journal = Journal(os.path.join(DATA_DIR, 'parking.json'),
+                  os.path.join(DATA_DIR, 'parking_journal.log'))
+
+# RLock: датчик выбирает место и меняет его под одной блокировкой
+lock = threading.RLock()
+
+spots = journal.load_snapshot({"1": "free", "2": "occupied", "3": "free"})
+
+
+def _replay(entry):
+    spots[entry["id"]] = entry["status"]
+
+
+journal.replay(_replay)
+journal.start_compactor(lock, lambda: spots)
+
+
+def get_all():
+    """Копия текущего состояния"""
+    with lock:
+        return dict(spots)
+
+
+def update(changes):
+    """Применяет {id: статус} целиком или никак.
+    Возвращает (список неизвестных id, копия состояния после изменения)."""
+    with lock:
+        missing = [spot for spot in changes if spot not in spots]
+        if missing:
+            return missing, None
+        spots.update(changes)
+        if journal.append([{"id": spot, "status": status} for spot, status in changes.items()]):
+            journal.compact(spots)
+        return [], dict(spots)
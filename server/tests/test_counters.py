@@ -0,0 +1,131 @@
+import importlib.util
+import os
+import random
+import sys
+import tempfile
+import unittest
+from unittest import mock
+
+# Запуск из папки server: python -m unittest discover tests
+SERVER_DIR = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+sys.path.insert(0, SERVER_DIR)
+
+main = None
+saved_cwd = None
+saved_levels = None
+
+
+def setUpModule():
+    # снимок, журнал и лог сервер пишет в текущую папку — уводим их во временную.
+    # main грузится заново под своим именем: import main отдал бы модуль
+    # (вместе с состоянием) из sys.modules, если его уже загрузил другой файл
+    global main, saved_cwd, saved_levels
+    saved_cwd = os.getcwd()
+    saved_levels = os.environ.get("PARKING_LEVELS")
+    os.chdir(tempfile.mkdtemp())
+    os.environ["PARKING_LEVELS"] = "10,10,5"
+
+    spec = importlib.util.spec_from_file_location("main_counters_test",
+                                                  os.path.join(SERVER_DIR, "main.py"))
+    main = importlib.util.module_from_spec(spec)
+    spec.loader.exec_module(main)
+
+
+def tearDownModule():
+    os.chdir(saved_cwd)
+    if saved_levels is None:
+        os.environ.pop("PARKING_LEVELS", None)
+    else:
+        os.environ["PARKING_LEVELS"] = saved_levels
+
+
+class CountersTest(unittest.TestCase):
+
+    def setUp(self):
+        self.client = main.app.test_client()
+        # все места свободны
+        self.client.post("/ingest", json={"changes": [
+            {"id": place_id, "status": "free"} for place_id in range(1, main.TOTAL_PLACES + 1)]})
+
+    def assertConsistent(self):
+        with main.state_lock:
+            self.assertEqual([], main.check_counters())
+
+    def stats(self):
+        return self.client.get("/stats").get_json()
+
+    def test_update_changes_counters_once(self):
+        self.client.post("/update", json={"id": 3, "status": "busy"})
+        self.client.post("/update", json={"id": 3, "status": "busy"})  # уже занято
+
+        self.assertEqual({"free": 24, "busy": 1, "total": 25, "load": "4%"}, self.stats())
+        self.assertConsistent()
+
+        self.client.post("/update", json={"id": 3, "status": "free"})
+        self.assertEqual(25, self.stats()["free"])
+        self.assertConsistent()
+
+    def test_conflict_leaves_counters(self):
+        self.client.post("/update", json={"id": 5, "status": "busy"})
+        response = self.client.post("/update", json={"id": 5, "status": "busy", "expected": "free"})
+
+        self.assertEqual(409, response.status_code)
+        self.assertEqual(1, self.stats()["busy"])
+        self.assertConsistent()
+
+    def test_batch_and_ingest_count_per_level(self):
+        self.client.post("/update/batch", json={"actions": [
+            {"key": "a", "id": 1, "status": "busy"},
+            {"key": "a", "id": 1, "status": "busy"},   # повтор ключа
+            {"key": "b", "id": 12, "status": "busy"},
+        ]})
+        self.client.post("/ingest", json={"changes": [
+            {"id": 21, "status": "busy"},
+            {"id": 22, "status": "busy"},
+            {"id": 22, "status": "free"},              # действует последнее показание
+        ]})
+
+        levels = self.client.get("/levels").get_json()["levels"]
+        self.assertEqual([9, 9, 4], [level["free"] for level in levels])
+        self.assertEqual([1, 1, 1], [level["busy"] for level in levels])
+        self.assertEqual(3, self.stats()["busy"])
+        self.assertConsistent()
+
+    def test_random_transitions_match_full_scan(self):
+        rnd = random.Random(7)
+        for i in range(500):
+            place_id = rnd.randint(1, main.TOTAL_PLACES)
+            status = rnd.choice(["free", "busy"])
+            path = rnd.choice(["/update", "/batch", "/ingest"])
+            if path == "/update":
+                self.client.post("/update", json={"id": place_id, "status": status,
+                                                  "expected": rnd.choice(["free", "busy"])})
+            elif path == "/batch":
+                self.client.post("/update/batch", json={"actions": [
+                    {"key": f"k{i}", "id": place_id, "status": status},
+                    {"key": f"k{i}-2", "id": rnd.randint(1, main.TOTAL_PLACES), "status": "busy"},
+                ]})
+            else:
+                self.client.post("/ingest", json={"changes": [
+                    {"id": rnd.randint(1, main.TOTAL_PLACES), "status": rnd.choice(["free", "busy"])}
+                    for _ in range(rnd.randint(1, 8))]})
+            self.assertConsistent()
+
+        free = sum(1 for place in main.parking_places if place["status"] == "free")
+        self.assertEqual(free, self.stats()["free"])
+
+    def test_check_counters_reports_drift(self):
+        with main.state_lock:
+            main.level_free[1] += 1
+            try:
+                self.assertEqual(["level 1: free 11, actual 10"], main.check_counters())
+            finally:
+                main.level_free[1] -= 1
+
+    def test_stats_without_places(self):
+        with mock.patch.object(main, "TOTAL_PLACES", 0), mock.patch.object(main, "free_total", 0):
+            self.assertEqual({"free": 0, "busy": 0, "total": 0, "load": "0%"}, main.compute_stats())
+
+
+if __name__ == "__main__":
+    unittest.main()
@@ -0,0 +1,91 @@
+import importlib.util
+import os
+import sys
+import tempfile
+import unittest
+
+# Запуск из папки server: python -m unittest discover tests
+SERVER_DIR = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+sys.path.insert(0, SERVER_DIR)
+
+main = None
+saved_cwd = None
+saved_levels = None
+
+
+def setUpModule():
+    # своя копия main в своей папке: состояние других тестовых файлов
+    # не должно менять ETag и версии
+    global main, saved_cwd, saved_levels
+    saved_cwd = os.getcwd()
+    saved_levels = os.environ.get("PARKING_LEVELS")
+    os.chdir(tempfile.mkdtemp())
+    os.environ["PARKING_LEVELS"] = "10,10,5"
+
+    spec = importlib.util.spec_from_file_location("main_etag_test",
+                                                  os.path.join(SERVER_DIR, "main.py"))
+    main = importlib.util.module_from_spec(spec)
+    spec.loader.exec_module(main)
+
+
+def tearDownModule():
+    os.chdir(saved_cwd)
+    if saved_levels is None:
+        os.environ.pop("PARKING_LEVELS", None)
+    else:
+        os.environ["PARKING_LEVELS"] = saved_levels
+
+
+class ETagTest(unittest.TestCase):
+
+    def setUp(self):
+        self.client = main.app.test_client()
+
+    def test_unchanged_state_answers_304(self):
+        for path in ["/places?level=0&since=0", "/levels", "/stats"]:
+            tag = self.client.get(path).headers["ETag"]
+            response = self.client.get(path, headers={"If-None-Match": tag})
+            self.assertEqual(304, response.status_code, path)
+            self.assertEqual(tag, response.headers["ETag"])
+
+    def test_change_gives_new_tag_and_body(self):
+        tag = self.client.get("/stats").headers["ETag"]
+        self.client.post("/update", json={"id": 2, "status": "busy"})
+        self.client.post("/update", json={"id": 2, "status": "free"})
+
+        response = self.client.get("/stats", headers={"If-None-Match": tag})
+        self.assertEqual(200, response.status_code)
+        self.assertNotEqual(tag, response.headers["ETag"])
+
+    def test_invalid_level_is_not_cached(self):
+        tag = self.client.get("/stats").headers["ETag"]
+        response = self.client.get("/places?level=99", headers={"If-None-Match": tag})
+        self.assertEqual(400, response.status_code)
+
+
+class PagingTest(unittest.TestCase):
+
+    def setUp(self):
+        self.client = main.app.test_client()
+
+    def test_pages_cover_level_and_end_with_none(self):
+        ids, offset = [], 0
+        while offset is not None:
+            page = self.client.get(f"/places?level=0&offset={offset}&limit=4").get_json()
+            ids += [p["id"] for p in page["places"]]
+            offset = page["next_offset"]
+        self.assertEqual(list(range(1, 11)), ids)
+
+    def test_zero_limit_is_rejected(self):
+        for limit in ["0", "-1"]:
+            response = self.client.get("/places?level=0&since=0&offset=0&limit=" + limit)
+            self.assertEqual(400, response.status_code, limit)
+
+    def test_offset_past_end_has_no_next_page(self):
+        page = self.client.get("/places?level=2&offset=50&limit=10").get_json()
+        self.assertEqual([], page["places"])
+        self.assertIsNone(page["next_offset"])
+
+
+if __name__ == "__main__":
+    unittest.main()
@@ -0,0 +1,172 @@
+import importlib.util
+import json
+import os
+import sys
+import tempfile
+import unittest
+
+# Запуск из папки server: python -m unittest discover tests
+SERVER_DIR = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+sys.path.insert(0, SERVER_DIR)
+
+from journal import Journal
+
+
+class JournalTest(unittest.TestCase):
+
+    def setUp(self):
+        self.dir = tempfile.mkdtemp()
+        self.snapshot = os.path.join(self.dir, "state.json")
+        self.log = os.path.join(self.dir, "journal.log")
+
+    def open(self, compact_every=1000):
+        """Журнал «после перезапуска»: снимок + докатка записей в словарь"""
+        journal = Journal(self.snapshot, self.log, compact_every=compact_every)
+        state = journal.load_snapshot({})
+        journal.replay(lambda entry: state.__setitem__(entry["id"], entry["status"]))
+        return journal, state
+
+    def test_empty_start_uses_default(self):
+        journal, state = self.open()
+        self.assertEqual({}, state)
+        self.assertEqual(0, journal.entries)
+
+    def test_replay_restores_appended_entries(self):
+        journal, _ = self.open()
+        journal.append([{"id": "1", "status": "busy"}, {"id": "2", "status": "busy"}])
+        journal.append([{"id": "1", "status": "free"}])
+
+        journal, state = self.open()
+        self.assertEqual({"1": "free", "2": "busy"}, state)
+        self.assertEqual(3, journal.entries)
+
+    def test_torn_tail_is_dropped_and_cut(self):
+        journal, _ = self.open()
+        journal.append([{"id": "1", "status": "busy"}])
+        with open(self.log, "a", encoding="utf-8") as f:
+            f.write('{"id": "2", "sta')  # сервер упал посреди записи
+
+        journal, state = self.open()
+        self.assertEqual({"1": "busy"}, state)
+
+        # новая запись начинается с целой строки, а не дописывается к обрывку
+        journal.append([{"id": "3", "status": "busy"}])
+        _, state = self.open()
+        self.assertEqual({"1": "busy", "3": "busy"}, state)
+
+    def test_compact_writes_snapshot_and_empties_journal(self):
+        journal, state = self.open(compact_every=3)
+        self.assertFalse(journal.append([{"id": "1", "status": "busy"}]))
+        state["1"] = "busy"
+        self.assertTrue(journal.append([{"id": "2", "status": "busy"}, {"id": "3", "status": "free"}]))
+        state.update({"2": "busy", "3": "free"})
+
+        journal.compact(state)
+        self.assertEqual(0, os.path.getsize(self.log))
+        self.assertFalse(os.path.exists(self.snapshot + ".tmp"))
+        with open(self.snapshot, encoding="utf-8") as f:
+            self.assertEqual({"1": "busy", "2": "busy", "3": "free"}, json.load(f))
+
+        journal.append([{"id": "2", "status": "free"}])
+        journal, state = self.open()
+        self.assertEqual({"1": "busy", "2": "free", "3": "free"}, state)
+        self.assertEqual(1, journal.entries)
+
+    def test_replay_over_newer_snapshot_is_harmless(self):
+        # упали между заменой снимка и очисткой журнала: записи докатятся второй раз
+        journal, state = self.open()
+        journal.append([{"id": "1", "status": "busy"}])
+        with open(self.snapshot, "w", encoding="utf-8") as f:
+            json.dump({"1": "busy", "2": "free"}, f)
+
+        _, state = self.open()
+        self.assertEqual({"1": "busy", "2": "free"}, state)
+
+
+class SpotsTest(unittest.TestCase):
+    """Состояние app.py и датчиков (spots.py) переживает перезапуск"""
+
+    def setUp(self):
+        os.environ["PARKING_DATA_DIR"] = tempfile.mkdtemp()
+
+    def tearDown(self):
+        del os.environ["PARKING_DATA_DIR"]
+
+    def start(self):
+        spec = importlib.util.spec_from_file_location("spots_under_test",
+                                                      os.path.join(SERVER_DIR, "spots.py"))
+        module = importlib.util.module_from_spec(spec)
+        spec.loader.exec_module(module)
+        return module
+
+    def test_update_survives_restart(self):
+        spots = self.start()
+        self.assertEqual({"1": "free", "2": "occupied", "3": "free"}, spots.get_all())
+
+        missing, data = spots.update({"1": "occupied", "3": "occupied"})
+        self.assertEqual([], missing)
+        self.assertEqual("occupied", data["3"])
+
+        self.assertEqual({"1": "occupied", "2": "occupied", "3": "occupied"}, self.start().get_all())
+
+    def test_unknown_spot_changes_nothing(self):
+        spots = self.start()
+        missing, data = spots.update({"1": "occupied", "9": "free"})
+
+        self.assertEqual(["9"], missing)
+        self.assertIsNone(data)
+        self.assertEqual("free", self.start().get_all()["1"])
+
+    def test_restart_after_compaction(self):
+        spots = self.start()
+        spots.update({"2": "free"})
+        with spots.lock:
+            spots.journal.compact(spots.spots)
+        spots.update({"3": "occupied"})
+
+        self.assertEqual({"1": "free", "2": "free", "3": "occupied"}, self.start().get_all())
+
+
+class ServerRestartTest(unittest.TestCase):
+    """main.py после перезапуска: места, версия и ключи идемпотентности"""
+
+    def setUp(self):
+        self.cwd = os.getcwd()
+        os.chdir(tempfile.mkdtemp())
+
+    def tearDown(self):
+        os.chdir(self.cwd)
+
+    def start(self):
+        spec = importlib.util.spec_from_file_location("main_under_test",
+                                                      os.path.join(SERVER_DIR, "main.py"))
+        module = importlib.util.module_from_spec(spec)
+        spec.loader.exec_module(module)
+        return module
+
+    def test_state_and_keys_survive_restart(self):
+        server = self.start()
+        client = server.app.test_client()
+        client.post("/update", json={"id": 3, "status": "busy", "expected": "free", "key": "k1"})
+        client.post("/ingest", json={"changes": [{"id": 4, "status": "busy"}]})
+        with server.state_lock:
+            server.journal.compact(server.snapshot_state())
+        client.post("/update", json={"id": 5, "status": "busy", "expected": "free", "key": "k2"})
+
+        server = self.start()
+        self.assertEqual(3, server.state_version)
+        self.assertEqual(["busy"] * 3, [server.parking_places[i]["status"] for i in (2, 3, 4)])
+        with server.state_lock:
+            self.assertEqual([], server.check_counters())
+
+        # повтор заезда, ответ на который потерялся до перезапуска, — не конфликт
+        client = server.app.test_client()
+        for key, place_id in (("k1", 3), ("k2", 5)):
+            response = client.post("/update", json={"id": place_id, "status": "busy",
+                                                    "expected": "free", "key": key})
+            self.assertEqual(200, response.status_code)
+            self.assertEqual("Already applied", response.get_json()["message"])
+
+
+if __name__ == "__main__":
+    unittest.main()